@@ -1,7 +1,90 @@
 package es.codeurjc.test.cucumber;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
 public class Calculator {
+
+	// How add(int[], AddMode) accumulates a batch of values
+	public enum AddMode {
+		// int accumulator, overflows silently like add(int, int)
+		WRAPPING,
+		// long accumulator, exact for any int[] that fits in memory
+		EXACT,
+		// int accumulator, throws ArithmeticException on overflow
+		CHECKED,
+		// long accumulator, pairwise halves summed in the common fork-join pool
+		PARALLEL
+	}
+
+	static final int PARALLEL_THRESHOLD = 1 << 16;
+
 	public int add(int a, int b) {
 		return a + b;
 	}
-}
\ No newline at end of file
+
+	// sum of all values using the given mode
+	public long add(int[] values, AddMode mode) {
+		return switch (mode) {
+		case WRAPPING -> addWrapping(values);
+		case EXACT -> addExact(values, 0, values.length);
+		case CHECKED -> addChecked(values);
+		case PARALLEL -> values.length < PARALLEL_THRESHOLD ? addExact(values, 0, values.length)
+				: ForkJoinPool.commonPool().invoke(new AddTask(values, 0, values.length));
+		};
+	}
+
+	// compile once, then evaluate over whole int[] or double[] columns
+	public CalculatorExpression compile(String expression, String... variables) {
+		return CalculatorExpression.compile(expression, variables);
+	}
+
+	private static int addWrapping(int[] values) {
+		int total = 0;
+		for (int value : values) {
+			total += value;
+		}
+		return total;
+	}
+
+	private static long addExact(int[] values, int from, int to) {
+		long total = 0;
+		for (int i = from; i < to; i++) {
+			total += values[i];
+		}
+		return total;
+	}
+
+	private static int addChecked(int[] values) {
+		int total = 0;
+		for (int value : values) {
+			total = Math.addExact(total, value);
+		}
+		return total;
+	}
+
+	private static class AddTask extends RecursiveTask<Long> {
+
+		private final int[] values;
+		private final int from;
+		private final int to;
+
+		AddTask(int[] values, int from, int to) {
+			this.values = values;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Long compute() {
+			if (to - from <= PARALLEL_THRESHOLD) {
+				return addExact(values, from, to);
+			}
+			int middle = (from + to) >>> 1;
+			AddTask left = new AddTask(values, from, middle);
+			left.fork();
+			long right = new AddTask(values, middle, to).compute();
+			return left.join() + right;
+		}
+	}
+}
@@ -0,0 +1,410 @@
+package es.codeurjc.test.cucumber;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Arithmetic expression compiled once into a postfix plan that is evaluated
+// over whole column batches. Every instruction of the plan runs over a chunk
+// of rows before the next one starts, so the dispatch cost is paid once per
+// chunk instead of once per row. The only working memory is one stack of
+// chunk buffers per thread, shared by every expression and grown to the
+// deepest plan evaluated on that thread.
+//
+// Grammar: + - * / with the usual precedence, unary minus, parentheses,
+// numeric literals and variables. Variables are bound to columns by their
+// position in the list given to compile.
+public class CalculatorExpression {
+
+	static final int CHUNK_SIZE = 1024;
+
+	private static final int VARIABLE = 0;
+	private static final int CONSTANT = 1;
+	private static final int ADD = 2;
+	private static final int SUBTRACT = 3;
+	private static final int MULTIPLY = 4;
+	private static final int DIVIDE = 5;
+	private static final int NEGATE = 6;
+
+	private final String source;
+	private final int variableCount;
+	private final int[] opcodes;
+	private final int[] operands;
+	private final double[] constants;
+	private final int maxDepth;
+	private final boolean integerConstants;
+
+	private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+	private CalculatorExpression(String source, int variableCount, int[] opcodes, int[] operands,
+			double[] constants) {
+		this.source = source;
+		this.variableCount = variableCount;
+		this.opcodes = opcodes;
+		this.operands = operands;
+		this.constants = constants;
+		this.maxDepth = maxDepth(opcodes);
+		boolean integers = true;
+		for (double constant : constants) {
+			integers &= constant == (int) constant;
+		}
+		this.integerConstants = integers;
+	}
+
+	public static CalculatorExpression compile(String source, String... variables) {
+		return new Parser(source, Arrays.asList(variables)).parse();
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	public int getVariableCount() {
+		return variableCount;
+	}
+
+	// value of the expression for a single row
+	public double evaluate(double... values) {
+		checkColumnCount(values.length);
+		double[] stack = WORKSPACE.get().row(maxDepth);
+		int top = 0;
+		for (int pc = 0; pc < opcodes.length; pc++) {
+			switch (opcodes[pc]) {
+			case VARIABLE -> stack[top++] = values[operands[pc]];
+			case CONSTANT -> stack[top++] = constants[operands[pc]];
+			case ADD -> { top--; stack[top - 1] += stack[top]; }
+			case SUBTRACT -> { top--; stack[top - 1] -= stack[top]; }
+			case MULTIPLY -> { top--; stack[top - 1] *= stack[top]; }
+			case DIVIDE -> { top--; stack[top - 1] /= stack[top]; }
+			case NEGATE -> stack[top - 1] = -stack[top - 1];
+			default -> throw new IllegalStateException("Unknown opcode " + opcodes[pc]);
+			}
+		}
+		return stack[0];
+	}
+
+	// dest[row] = expression(columns[0][row], columns[1][row], ...)
+	public double[] evaluate(double[][] columns, double[] dest) {
+		checkColumnCount(columns.length);
+		int rows = dest.length;
+		for (double[] column : columns) {
+			checkRows(column.length, rows);
+		}
+		double[][] stack = WORKSPACE.get().doubles(maxDepth);
+		for (int from = 0; from < rows; from += CHUNK_SIZE) {
+			int length = Math.min(CHUNK_SIZE, rows - from);
+			int top = 0;
+			for (int pc = 0; pc < opcodes.length; pc++) {
+				switch (opcodes[pc]) {
+				case VARIABLE -> System.arraycopy(columns[operands[pc]], from, stack[top++], 0, length);
+				case CONSTANT -> Arrays.fill(stack[top++], 0, length, constants[operands[pc]]);
+				case NEGATE -> {
+					double[] a = stack[top - 1];
+					for (int i = 0; i < length; i++) {
+						a[i] = -a[i];
+					}
+				}
+				default -> {
+					top--;
+					binary(opcodes[pc], stack[top - 1], stack[top], length);
+				}
+				}
+			}
+			System.arraycopy(stack[0], 0, dest, from, length);
+		}
+		return dest;
+	}
+
+	// dest[row] = expression(columns[0][row], columns[1][row], ...) with int
+	// arithmetic: overflow wraps as in Java and division truncates toward zero
+	public int[] evaluate(int[][] columns, int[] dest) {
+		if (!integerConstants) {
+			throw new IllegalStateException("Expression " + source + " has non integer constants");
+		}
+		checkColumnCount(columns.length);
+		int rows = dest.length;
+		for (int[] column : columns) {
+			checkRows(column.length, rows);
+		}
+		int[][] stack = WORKSPACE.get().ints(maxDepth);
+		for (int from = 0; from < rows; from += CHUNK_SIZE) {
+			int length = Math.min(CHUNK_SIZE, rows - from);
+			int top = 0;
+			for (int pc = 0; pc < opcodes.length; pc++) {
+				switch (opcodes[pc]) {
+				case VARIABLE -> System.arraycopy(columns[operands[pc]], from, stack[top++], 0, length);
+				case CONSTANT -> Arrays.fill(stack[top++], 0, length, (int) constants[operands[pc]]);
+				case NEGATE -> {
+					int[] a = stack[top - 1];
+					for (int i = 0; i < length; i++) {
+						a[i] = -a[i];
+					}
+				}
+				default -> {
+					top--;
+					binary(opcodes[pc], stack[top - 1], stack[top], length);
+				}
+				}
+			}
+			System.arraycopy(stack[0], 0, dest, from, length);
+		}
+		return dest;
+	}
+
+	// one tight loop per operator so the JIT can unroll and vectorize it
+	private static void binary(int opcode, double[] a, double[] b, int length) {
+		switch (opcode) {
+		case ADD -> {
+			for (int i = 0; i < length; i++) {
+				a[i] += b[i];
+			}
+		}
+		case SUBTRACT -> {
+			for (int i = 0; i < length; i++) {
+				a[i] -= b[i];
+			}
+		}
+		case MULTIPLY -> {
+			for (int i = 0; i < length; i++) {
+				a[i] *= b[i];
+			}
+		}
+		case DIVIDE -> {
+			for (int i = 0; i < length; i++) {
+				a[i] /= b[i];
+			}
+		}
+		default -> throw new IllegalStateException("Unknown opcode " + opcode);
+		}
+	}
+
+	private static void binary(int opcode, int[] a, int[] b, int length) {
+		switch (opcode) {
+		case ADD -> {
+			for (int i = 0; i < length; i++) {
+				a[i] += b[i];
+			}
+		}
+		case SUBTRACT -> {
+			for (int i = 0; i < length; i++) {
+				a[i] -= b[i];
+			}
+		}
+		case MULTIPLY -> {
+			for (int i = 0; i < length; i++) {
+				a[i] *= b[i];
+			}
+		}
+		case DIVIDE -> {
+			for (int i = 0; i < length; i++) {
+				a[i] /= b[i];
+			}
+		}
+		default -> throw new IllegalStateException("Unknown opcode " + opcode);
+		}
+	}
+
+	private void checkColumnCount(int columns) {
+		if (columns != variableCount) {
+			throw new IllegalArgumentException("Expression " + source + " needs " + variableCount
+					+ " columns, got " + columns);
+		}
+	}
+
+	private static void checkRows(int length, int rows) {
+		if (length < rows) {
+			throw new IllegalArgumentException("Column length " + length + " is shorter than " + rows);
+		}
+	}
+
+	private static int maxDepth(int[] opcodes) {
+		int depth = 0;
+		int max = 0;
+		for (int opcode : opcodes) {
+			if (opcode == VARIABLE || opcode == CONSTANT) {
+				max = Math.max(max, ++depth);
+			} else if (opcode != NEGATE) {
+				depth--;
+			}
+		}
+		return max;
+	}
+
+	public String toString() {
+		return source;
+	}
+
+	// stacks of one thread, only ever grown: a thread keeps at most the
+	// buffers of the deepest expression it has evaluated
+	private static class Workspace {
+
+		private double[] row = new double[0];
+		private double[][] doubles = new double[0][];
+		private int[][] ints = new int[0][];
+
+		double[] row(int depth) {
+			if (row.length < depth) {
+				row = new double[depth];
+			}
+			return row;
+		}
+
+		double[][] doubles(int depth) {
+			if (doubles.length < depth) {
+				int old = doubles.length;
+				doubles = Arrays.copyOf(doubles, depth);
+				for (int i = old; i < depth; i++) {
+					doubles[i] = new double[CHUNK_SIZE];
+				}
+			}
+			return doubles;
+		}
+
+		int[][] ints(int depth) {
+			if (ints.length < depth) {
+				int old = ints.length;
+				ints = Arrays.copyOf(ints, depth);
+				for (int i = old; i < depth; i++) {
+					ints[i] = new int[CHUNK_SIZE];
+				}
+			}
+			return ints;
+		}
+	}
+
+	// recursive descent parser emitting postfix code
+	private static class Parser {
+
+		private final String source;
+		private final List<String> variables;
+		private final List<Integer> opcodes = new ArrayList<>();
+		private final List<Integer> operands = new ArrayList<>();
+		private final List<Double> constants = new ArrayList<>();
+		private int pos;
+
+		Parser(String source, List<String> variables) {
+			this.source = source;
+			this.variables = variables;
+		}
+
+		CalculatorExpression parse() {
+			expression();
+			skipSpaces();
+			if (pos < source.length()) {
+				throw error("Unexpected '" + source.charAt(pos) + "'");
+			}
+			int[] ops = opcodes.stream().mapToInt(Integer::intValue).toArray();
+			int[] args = operands.stream().mapToInt(Integer::intValue).toArray();
+			double[] values = constants.stream().mapToDouble(Double::doubleValue).toArray();
+			return new CalculatorExpression(source, variables.size(), ops, args, values);
+		}
+
+		// expression := term (('+' | '-') term)*
+		private void expression() {
+			term();
+			while (true) {
+				if (accept('+')) {
+					term();
+					emit(ADD, 0);
+				} else if (accept('-')) {
+					term();
+					emit(SUBTRACT, 0);
+				} else {
+					return;
+				}
+			}
+		}
+
+		// term := unary (('*' | '/') unary)*
+		private void term() {
+			unary();
+			while (true) {
+				if (accept('*')) {
+					unary();
+					emit(MULTIPLY, 0);
+				} else if (accept('/')) {
+					unary();
+					emit(DIVIDE, 0);
+				} else {
+					return;
+				}
+			}
+		}
+
+		// unary := ('-' | '+') unary | primary
+		private void unary() {
+			if (accept('-')) {
+				unary();
+				emit(NEGATE, 0);
+			} else if (accept('+')) {
+				unary();
+			} else {
+				primary();
+			}
+		}
+
+		// primary := number | variable | '(' expression ')'
+		private void primary() {
+			skipSpaces();
+			if (pos >= source.length()) {
+				throw error("Unexpected end of expression");
+			}
+			char c = source.charAt(pos);
+			if (accept('(')) {
+				expression();
+				if (!accept(')')) {
+					throw error("Missing ')'");
+				}
+			} else if (Character.isDigit(c) || c == '.') {
+				int start = pos;
+				while (pos < source.length()
+						&& (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) {
+					pos++;
+				}
+				try {
+					constants.add(Double.parseDouble(source.substring(start, pos)));
+				} catch (NumberFormatException e) {
+					throw error("Invalid number '" + source.substring(start, pos) + "'");
+				}
+				emit(CONSTANT, constants.size() - 1);
+			} else if (Character.isJavaIdentifierStart(c)) {
+				int start = pos;
+				while (pos < source.length() && Character.isJavaIdentifierPart(source.charAt(pos))) {
+					pos++;
+				}
+				String name = source.substring(start, pos);
+				int index = variables.indexOf(name);
+				if (index < 0) {
+					throw error("Unknown variable '" + name + "'");
+				}
+				emit(VARIABLE, index);
+			} else {
+				throw error("Unexpected '" + c + "'");
+			}
+		}
+
+		private boolean accept(char c) {
+			skipSpaces();
+			if (pos < source.length() && source.charAt(pos) == c) {
+				pos++;
+				return true;
+			}
+			return false;
+		}
+
+		private void skipSpaces() {
+			while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+				pos++;
+			}
+		}
+
+		private void emit(int opcode, int operand) {
+			opcodes.add(opcode);
+			operands.add(operand);
+		}
+
+		private IllegalArgumentException error(String message) {
+			return new IllegalArgumentException(message + " at position " + pos + " in: " + source);
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package es.codeurjc.test.cucumber;
 
+import java.util.Arrays;
+
 import org.hamcrest.Matchers;
 import static org.hamcrest.MatcherAssert.assertThat;
 import org.junit.Before;
@@ -13,6 +15,18 @@ public class CalculatorRunSteps {
     private int total;
  
     private Calculator calculator;
+
+    private CalculatorExpression expression;
+
+    private int[] results;
+
+    private double[][] columns;
+
+    private double[] doubleResults;
+
+    private long batchTotal;
+
+    private ArithmeticException overflow;
  
     @Before
     private void init() {
@@ -33,4 +47,68 @@ public class CalculatorRunSteps {
     public void validateResult(int result) throws Throwable {
         assertThat(total, Matchers.equalTo(result));
     }
+
+    @When("^I compile \"([^\"]*)\" with variables (\\w+) and (\\w+)$")
+    public void compile(String source, String first, String second) throws Throwable {
+        expression = calculator.compile(source, first, second);
+    }
+
+    @When("^I evaluate it over \\w+ = ([-\\d,]+) and \\w+ = ([-\\d,]+)$")
+    public void evaluate(String first, String second) throws Throwable {
+        int[][] columns = { toInts(first), toInts(second) };
+        results = expression.evaluate(columns, new int[columns[0].length]);
+    }
+
+    @Then("^the results should be ([-\\d,]+)$")
+    public void validateResults(String expected) throws Throwable {
+        assertThat(results, Matchers.equalTo(toInts(expected)));
+    }
+
+    @When("^I evaluate it over (\\d+) rows$")
+    public void evaluateRows(int rows) throws Throwable {
+        columns = new double[2][rows];
+        for (int row = 0; row < rows; row++) {
+            columns[0][row] = row;
+            columns[1][row] = rows - row;
+        }
+        doubleResults = expression.evaluate(columns, new double[rows]);
+    }
+
+    @Then("^every result should match the single row evaluation$")
+    public void validateRows() throws Throwable {
+        for (int row = 0; row < doubleResults.length; row++) {
+            assertThat(doubleResults[row],
+                    Matchers.equalTo(expression.evaluate(columns[0][row], columns[1][row])));
+        }
+    }
+
+    @When("^I add the numbers ([-\\d,]+) in (\\w+) mode$")
+    public void addBatch(String values, Calculator.AddMode mode) throws Throwable {
+        try {
+            batchTotal = calculator.add(toInts(values), mode);
+        } catch (ArithmeticException e) {
+            overflow = e;
+        }
+    }
+
+    @When("^I add (\\d+) copies of (-?\\d+) in (\\w+) mode$")
+    public void addCopies(int count, int value, Calculator.AddMode mode) throws Throwable {
+        int[] values = new int[count];
+        Arrays.fill(values, value);
+        batchTotal = calculator.add(values, mode);
+    }
+
+    @Then("^the batch result should be (-?\\d+)$")
+    public void validateBatchResult(long result) throws Throwable {
+        assertThat(batchTotal, Matchers.equalTo(result));
+    }
+
+    @Then("^an overflow should be reported$")
+    public void validateOverflow() throws Throwable {
+        assertThat(overflow, Matchers.notNullValue());
+    }
+
+    private static int[] toInts(String values) {
+        return Arrays.stream(values.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
 }
\ No newline at end of file
@@ -14,3 +14,24 @@ Feature: Calculator
     | 10   | 15   | 25    |
     | 99   | -99  | 0     |
     | -1   | -10  | -11   |
+ 
+  Scenario Outline: Add a batch of numbers in <mode> mode
+    Given I have a calculator
+    When I add the numbers 2147483647,1,5 in <mode> mode
+    Then the batch result should be <total>
+ 
+  Examples: 
+    | mode     | total       |
+    | WRAPPING | -2147483643 |
+    | EXACT    | 2147483653  |
+    | PARALLEL | 2147483653  |
+ 
+  Scenario: Overflow is reported in checked mode
+    Given I have a calculator
+    When I add the numbers 2147483647,1,5 in CHECKED mode
+    Then an overflow should be reported
+ 
+  Scenario: Add more numbers than one parallel task
+    Given I have a calculator
+    When I add 1000000 copies of 2147483647 in PARALLEL mode
+    Then the batch result should be 2147483647000000
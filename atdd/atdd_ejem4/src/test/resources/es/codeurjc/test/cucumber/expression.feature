@@ -0,0 +1,23 @@
+Feature: Expressions
+  As a user
+  I want to compile an expression once and evaluate it over columns
+  So that I don't need to call the calculator once per row
+ 
+  Scenario Outline: Evaluate <expression> over columns a and b
+    Given I have a calculator
+    When I compile "<expression>" with variables a and b
+    And I evaluate it over a = <a> and b = <b>
+    Then the results should be <results>
+ 
+  Examples: 
+    | expression       | a        | b        | results  |
+    | a + b            | -2,10,99 | 3,15,-99 | 1,25,0   |
+    | a * (b - 2)      | 1,2,3    | 4,5,6    | 2,6,12   |
+    | -a / 2 + b * b   | 7,-9,4   | 1,2,-3   | -2,8,7   |
+    | (a - b) * -(a+b) | 5,0,-1   | 3,4,-1   | -16,16,0 |
+ 
+  Scenario: Evaluate over more rows than one chunk
+    Given I have a calculator
+    When I compile "a * 0.5 - b / 4" with variables a and b
+    And I evaluate it over 5000 rows
+    Then every result should match the single row evaluation
@@ -4,8 +4,26 @@ import static java.lang.Math.*;
 
 public class Complex {
 
-	private double realPart = 0;
-	private double imaginaryPart = 0;
+	// the steps of the features only build numbers with whole, non negative
+	// parts, so valueOf shares those below SHARED in each part
+	static final int SHARED = 10;
+
+	private static final Complex[][] SHARED_VALUES = new Complex[SHARED][SHARED];
+
+	static {
+		for (int re = 0; re < SHARED; re++) {
+			for (int im = 0; im < SHARED; im++) {
+				SHARED_VALUES[re][im] = new Complex(re, im);
+			}
+		}
+	}
+
+	public static final Complex ZERO = valueOf(0, 0);
+	public static final Complex ONE = valueOf(1, 0);
+	public static final Complex I = valueOf(0, 1);
+
+	private final double realPart;
+	private final double imaginaryPart;
 
 	public Complex(double realPart, double imaginaryPart) {
 		this.realPart = realPart;
@@ -13,6 +31,19 @@ public class Complex {
 	}
 
 	public Complex() {
+		this(0, 0);
+	}
+
+	public static Complex valueOf(double realPart, double imaginaryPart) {
+		if (isShared(realPart) && isShared(imaginaryPart)) {
+			return SHARED_VALUES[(int) realPart][(int) imaginaryPart];
+		}
+		return new Complex(realPart, imaginaryPart);
+	}
+
+	// 1 / part is negative for -0.0, which equals() tells apart from 0.0
+	private static boolean isShared(double part) {
+		return part >= 0 && part < SHARED && part == (int) part && 1 / part > 0;
 	}
 
 	public double getRealPart() {
@@ -17,12 +17,12 @@ public class ComplexAddRunSteps {
  
     @Given("^\\((\\d+)\\+(\\d+)i\\)$")
     public void givenNumber(int real, int img) throws Throwable {
-        number = new Complex(real, img);
+        number = Complex.valueOf(real, img);
     }
      
     @When("^is added to \\((\\d+)\\+(\\d+)i\\)$")
     public void isAddedToNumber(int real, int img) throws Throwable {
-        result = number.add(new Complex(real, img));
+        result = number.add(Complex.valueOf(real, img));
     }
     
     @Then("^\\((\\d+)\\+(\\d+)i\\) is obtained$")
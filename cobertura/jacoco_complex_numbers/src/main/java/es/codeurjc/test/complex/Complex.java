@@ -4,8 +4,28 @@ import static java.lang.Math.*;
 
 public class Complex {
 
-	private double realPart = 0;
-	private double imaginaryPart = 0;
+	// valueOf returns shared instances for the integer lattice
+	// [-CACHE_LIMIT, CACHE_LIMIT] x [-CACHE_LIMIT, CACHE_LIMIT]
+	static final int CACHE_LIMIT = 16;
+
+	private static final int CACHE_WIDTH = 2 * CACHE_LIMIT + 1;
+
+	private static final Complex[] CACHE = new Complex[CACHE_WIDTH * CACHE_WIDTH];
+
+	static {
+		for (int re = -CACHE_LIMIT; re <= CACHE_LIMIT; re++) {
+			for (int im = -CACHE_LIMIT; im <= CACHE_LIMIT; im++) {
+				CACHE[cacheIndex(re, im)] = new Complex(re, im);
+			}
+		}
+	}
+
+	public static final Complex ZERO = valueOf(0, 0);
+	public static final Complex ONE = valueOf(1, 0);
+	public static final Complex I = valueOf(0, 1);
+
+	private final double realPart;
+	private final double imaginaryPart;
 
 	public Complex(double realPart, double imaginaryPart) {
 		this.realPart = realPart;
@@ -13,6 +33,25 @@ public class Complex {
 	}
 
 	public Complex() {
+		this(0, 0);
+	}
+
+	// returns a shared instance for small integer parts, a new one otherwise.
+	// -0.0 is not cached because equals() tells it apart from 0.0
+	public static Complex valueOf(double realPart, double imaginaryPart) {
+		if (isCached(realPart) && isCached(imaginaryPart)) {
+			return CACHE[cacheIndex((int) realPart, (int) imaginaryPart)];
+		}
+		return new Complex(realPart, imaginaryPart);
+	}
+
+	private static boolean isCached(double part) {
+		return part >= -CACHE_LIMIT && part <= CACHE_LIMIT && part == (int) part
+				&& Double.doubleToRawLongBits(part) != Double.doubleToRawLongBits(-0.0);
+	}
+
+	private static int cacheIndex(int re, int im) {
+		return (re + CACHE_LIMIT) * CACHE_WIDTH + im + CACHE_LIMIT;
 	}
 
 	public double getRealPart() {
@@ -24,7 +63,33 @@ public class Complex {
 	}
 
 	public double abs() {
-		return sqrt(pow(this.realPart, 2.0) + pow(this.imaginaryPart, 2.0));
+		return magnitude(this.realPart, this.imaginaryPart);
+	}
+
+	// sqrt(re^2 + im^2) without intermediate overflow or underflow. The plain
+	// formula is used whenever the sum of squares is a normal number, the
+	// scaled one only for very large or very small parts.
+	static double magnitude(double re, double im) {
+		double sum = re * re + im * im;
+		if (sum >= Double.MIN_NORMAL && sum <= Double.MAX_VALUE) {
+			return Math.sqrt(sum);
+		}
+		return scaledMagnitude(re, im);
+	}
+
+	private static double scaledMagnitude(double re, double im) {
+		double absRe = Math.abs(re);
+		double absIm = Math.abs(im);
+		if (Double.isInfinite(absRe) || Double.isInfinite(absIm)) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double max = max(absRe, absIm);
+		double min = min(absRe, absIm);
+		if (max == 0.0) {
+			return 0.0;
+		}
+		double ratio = min / max;
+		return max * Math.sqrt(1.0 + ratio * ratio);
 	}
 
 	public double phase() {
@@ -38,8 +103,7 @@ public class Complex {
 
 	// return a new Complex object whose value is the reciprocal of this
 	public Complex reciprocal() {
-		double scale = pow(this.realPart, 2.0) + pow(this.imaginaryPart, 2.0);
-		return new Complex(this.realPart / scale, this.imaginaryPart / scale);
+		return ONE.divides(this);
 	}
 
 	// return a new Complex object whose value is (this + complex)
@@ -64,7 +128,7 @@ public class Complex {
 		double newRealPart = (this.realPart * complex.realPart)
 				- (this.imaginaryPart * complex.imaginaryPart);
 		double newImaginaryPart = (this.realPart * complex.imaginaryPart)
-				- (this.imaginaryPart * complex.realPart);
+				+ (this.imaginaryPart * complex.realPart);
 
 		return new Complex(newRealPart, newImaginaryPart);
 	}
@@ -76,10 +140,122 @@ public class Complex {
 
 	// return a new Complex object whose value is (this / complex)
 	public Complex divides(Complex complex) {
-		return this.times(complex.reciprocal());
+		double[] quotient = new double[2];
+		divide(this.realPart, this.imaginaryPart, complex.realPart, complex.imaginaryPart,
+				quotient, 0, quotient, 1);
+		return new Complex(quotient[0], quotient[1]);
+	}
+
+	// re[reIndex] + i im[imIndex] = (a + bi) / (c + di)
+	// Uses a single division when |c + di|^2 is a normal number and the
+	// result is finite, and Smith's algorithm otherwise, so large magnitudes
+	// do not overflow. Every division in the package goes through here so
+	// scalar, vector and kernel results stay bit for bit the same
+	static void divide(double a, double b, double c, double d,
+			double[] re, int reIndex, double[] im, int imIndex) {
+		double scale = c * c + d * d;
+		if (scale >= Double.MIN_NORMAL && scale <= Double.MAX_VALUE) {
+			double inverse = 1.0 / scale;
+			double newRealPart = (a * c + b * d) * inverse;
+			double newImaginaryPart = (b * c - a * d) * inverse;
+			if (Double.isFinite(newRealPart) && Double.isFinite(newImaginaryPart)) {
+				re[reIndex] = newRealPart;
+				im[imIndex] = newImaginaryPart;
+				return;
+			}
+		}
+		if (c == 0.0 && d == 0.0) {
+			throw new ArithmeticException("division by zero");
+		}
+		if (Math.abs(c) >= Math.abs(d)) {
+			double ratio = d / c;
+			double inverse = 1.0 / (c + d * ratio);
+			re[reIndex] = (a + b * ratio) * inverse;
+			im[imIndex] = (b - a * ratio) * inverse;
+		} else {
+			double ratio = c / d;
+			double inverse = 1.0 / (c * ratio + d);
+			re[reIndex] = (a * ratio + b) * inverse;
+			im[imIndex] = (b * ratio - a) * inverse;
+		}
 	}
 
 	
+	// return a new Complex object whose value is e^this
+	public Complex exp() {
+		double scale = Math.exp(this.realPart);
+		return new Complex(scale * Math.cos(this.imaginaryPart),
+				scale * Math.sin(this.imaginaryPart));
+	}
+
+	// return a new Complex object whose value is the principal logarithm of this
+	public Complex log() {
+		return new Complex(Math.log(abs()), phase());
+	}
+
+	// return a new Complex object whose value is the principal square root of this
+	// the formula is chosen by the sign of the real part to avoid cancellation
+	public Complex sqrt() {
+		if (this.realPart == 0.0 && this.imaginaryPart == 0.0) {
+			return new Complex(0, this.imaginaryPart);
+		}
+		double t = Math.sqrt((abs() + Math.abs(this.realPart)) / 2);
+		if (this.realPart >= 0) {
+			return new Complex(t, this.imaginaryPart / (2 * t));
+		} else {
+			return new Complex(Math.abs(this.imaginaryPart) / (2 * t),
+					copySign(t, this.imaginaryPart));
+		}
+	}
+
+	// return a new Complex object whose value is this^exponent, computed by
+	// binary exponentiation: O(log |exponent|) multiplications. A negative
+	// exponent raises the reciprocal, so a power that underflows gives zero
+	// instead of a division by zero
+	public Complex pow(int exponent) {
+		MutableComplex result = new MutableComplex(1, 0);
+		MutableComplex square = new MutableComplex(exponent < 0 ? this.reciprocal() : this);
+		// long so that -Integer.MIN_VALUE does not overflow
+		long remaining = Math.abs((long) exponent);
+		while (remaining > 0) {
+			if ((remaining & 1) != 0) {
+				result.timesInPlace(square.getRealPart(), square.getImaginaryPart());
+			}
+			remaining >>= 1;
+			if (remaining > 0) {
+				square.timesInPlace(square.getRealPart(), square.getImaginaryPart());
+			}
+		}
+		return result.toImmutable();
+	}
+
+	// return a new Complex object whose value is the principal value of
+	// this^exponent, that is e^(exponent * log(this))
+	public Complex pow(Complex exponent) {
+		if (this.realPart == 0.0 && this.imaginaryPart == 0.0) {
+			if (exponent.realPart == 0.0 && exponent.imaginaryPart == 0.0) {
+				return ONE;
+			}
+			if (exponent.realPart > 0) {
+				return ZERO;
+			}
+			throw new ArithmeticException("division by zero");
+		}
+		return exponent.times(log()).exp();
+	}
+
+	// return a new Complex object whose value is sin(this)
+	public Complex sin() {
+		return new Complex(Math.sin(this.realPart) * Math.cosh(this.imaginaryPart),
+				Math.cos(this.realPart) * Math.sinh(this.imaginaryPart));
+	}
+
+	// return a new Complex object whose value is cos(this)
+	public Complex cos() {
+		return new Complex(Math.cos(this.realPart) * Math.cosh(this.imaginaryPart),
+				-Math.sin(this.realPart) * Math.sinh(this.imaginaryPart));
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -110,6 +286,11 @@ public class Complex {
 		return true;
 	}
 
+	// parses the toString() form, see ComplexFormat
+	public static Complex parse(CharSequence text) {
+		return ComplexFormat.parse(text);
+	}
+
 	public String toString() {
 		return this.realPart + " + " + this.imaginaryPart + "i ";
 	}
@@ -0,0 +1,77 @@
+package es.codeurjc.test.complex;
+
+// Bulk operations over complex numbers stored as primitive arrays of real
+// and imaginary parts. When the JVM runs with
+//
+//   --add-modules jdk.incubator.vector
+//
+// the operations use SIMD instructions through the Vector API, otherwise
+// they fall back to plain scalar loops. Both paths give the same results as
+// the equivalent Complex operations, and divides throws
+// ArithmeticException("division by zero") like Complex.reciprocal(). In that
+// case the contents of the destination are unspecified: some of the elements
+// before the failing one may have been written and others not, depending on
+// the kernel and on how it splits the arrays in chunks.
+public class ComplexArrays {
+
+	private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+	private static final ComplexKernel KERNEL = createKernel();
+
+	private ComplexArrays() {
+	}
+
+	private static ComplexKernel createKernel() {
+		if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+			try {
+				return (ComplexKernel) Class.forName("es.codeurjc.test.complex.VectorComplexKernel")
+						.getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException | LinkageError e) {
+				// the scalar kernel is always available
+			}
+		}
+		return new ScalarComplexKernel();
+	}
+
+	public static boolean isVectorized() {
+		return !(KERNEL instanceof ScalarComplexKernel);
+	}
+
+	// dest = (re1 + im1 i) + (re2 + im2 i)
+	public static void add(double[] re1, double[] im1, double[] re2, double[] im2,
+			double[] destRe, double[] destIm) {
+		int length = checkLengths(re1, im1, re2, im2, destRe, destIm);
+		KERNEL.add(re1, im1, re2, im2, destRe, destIm, length);
+	}
+
+	// dest = (re1 + im1 i) * (re2 + im2 i)
+	public static void times(double[] re1, double[] im1, double[] re2, double[] im2,
+			double[] destRe, double[] destIm) {
+		int length = checkLengths(re1, im1, re2, im2, destRe, destIm);
+		KERNEL.times(re1, im1, re2, im2, destRe, destIm, length);
+	}
+
+	// dest = (re1 + im1 i) / (re2 + im2 i)
+	public static void divides(double[] re1, double[] im1, double[] re2, double[] im2,
+			double[] destRe, double[] destIm) {
+		int length = checkLengths(re1, im1, re2, im2, destRe, destIm);
+		KERNEL.divides(re1, im1, re2, im2, destRe, destIm, length);
+	}
+
+	// dest[i] = abs(re[i] + im[i] i)
+	public static void abs(double[] re, double[] im, double[] dest) {
+		int length = checkLengths(re, im, dest);
+		KERNEL.abs(re, im, dest, length);
+	}
+
+	private static int checkLengths(double[]... arrays) {
+		int length = arrays[0].length;
+		for (double[] array : arrays) {
+			if (array.length != length) {
+				throw new IllegalArgumentException("Array length " + array.length
+						+ " does not match " + length);
+			}
+		}
+		return length;
+	}
+}
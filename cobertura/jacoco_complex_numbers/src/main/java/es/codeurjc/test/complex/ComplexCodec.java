@@ -0,0 +1,79 @@
+package es.codeurjc.test.complex;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Fixed size binary form of a complex number: 16 bytes, the real part
+// followed by the imaginary part, both as little-endian IEEE 754 doubles.
+// Buffers are accessed by absolute offset and their byte order and
+// position are left untouched.
+public class ComplexCodec {
+
+	public static final int BYTES = 2 * Double.BYTES;
+
+	private static final VarHandle BUFFER_DOUBLE = MethodHandles
+			.byteBufferViewVarHandle(double[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private static final VarHandle ARRAY_DOUBLE = MethodHandles
+			.byteArrayViewVarHandle(double[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private ComplexCodec() {
+	}
+
+	public static void encode(double realPart, double imaginaryPart, ByteBuffer buffer,
+			int offset) {
+		BUFFER_DOUBLE.set(buffer, offset, realPart);
+		BUFFER_DOUBLE.set(buffer, offset + Double.BYTES, imaginaryPart);
+	}
+
+	public static void encode(Complex complex, ByteBuffer buffer, int offset) {
+		encode(complex.getRealPart(), complex.getImaginaryPart(), buffer, offset);
+	}
+
+	public static Complex decode(ByteBuffer buffer, int offset) {
+		return new Complex(decodeRealPart(buffer, offset), decodeImaginaryPart(buffer, offset));
+	}
+
+	public static double decodeRealPart(ByteBuffer buffer, int offset) {
+		return (double) BUFFER_DOUBLE.get(buffer, offset);
+	}
+
+	public static double decodeImaginaryPart(ByteBuffer buffer, int offset) {
+		return (double) BUFFER_DOUBLE.get(buffer, offset + Double.BYTES);
+	}
+
+	public static byte[] encode(Complex complex) {
+		byte[] bytes = new byte[BYTES];
+		ARRAY_DOUBLE.set(bytes, 0, complex.getRealPart());
+		ARRAY_DOUBLE.set(bytes, Double.BYTES, complex.getImaginaryPart());
+		return bytes;
+	}
+
+	public static Complex decode(byte[] bytes, int offset) {
+		return new Complex((double) ARRAY_DOUBLE.get(bytes, offset),
+				(double) ARRAY_DOUBLE.get(bytes, offset + Double.BYTES));
+	}
+
+	// writes count values of vector, starting at from, at buffer offset
+	public static void encode(ComplexVector vector, int from, int count, ByteBuffer buffer,
+			int offset) {
+		double[] res = vector.getRealParts();
+		double[] ims = vector.getImaginaryParts();
+		for (int i = 0; i < count; i++) {
+			encode(res[from + i], ims[from + i], buffer, offset + i * BYTES);
+		}
+	}
+
+	// reads count values from buffer offset into vector, starting at from
+	public static void decode(ByteBuffer buffer, int offset, ComplexVector vector, int from,
+			int count) {
+		double[] res = vector.getRealParts();
+		double[] ims = vector.getImaginaryParts();
+		for (int i = 0; i < count; i++) {
+			res[from + i] = decodeRealPart(buffer, offset + i * BYTES);
+			ims[from + i] = decodeImaginaryPart(buffer, offset + i * BYTES);
+		}
+	}
+}
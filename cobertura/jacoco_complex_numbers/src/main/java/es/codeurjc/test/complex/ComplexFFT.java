@@ -0,0 +1,250 @@
+package es.codeurjc.test.complex;
+
+import static java.lang.Math.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.IntStream;
+
+// In-place discrete Fourier transform over primitive re/im arrays.
+//
+// Power of two sizes use an iterative radix-2 Cooley-Tukey transform with
+// precomputed twiddle and bit reversal tables. Any other size is reduced to
+// a power of two transform with Bluestein's chirp-z algorithm, so every
+// size runs in O(n log n). Instances are immutable and safe to share
+// between threads. Power of two instances are cached for good, there are at
+// most 31 of them; Bluestein instances hold tables of about 4n values, so
+// only the BLUESTEIN_CACHE_SIZE most recently used are kept and callers that
+// cycle through many sizes should hold on to their own instance.
+//
+// transform computes X[k] = sum x[j] * exp(-2 pi i j k / n) and inverse
+// computes the same with a positive exponent divided by n.
+public class ComplexFFT {
+
+	// butterflies per stage above which a stage is split across cores
+	static final int PARALLEL_THRESHOLD = 1 << 15;
+
+	private static final int CHUNK_SIZE = 1 << 12;
+
+	static final int BLUESTEIN_CACHE_SIZE = 16;
+
+	private static final ConcurrentMap<Integer, ComplexFFT> CACHE = new ConcurrentHashMap<>();
+
+	// least recently used first, guarded by its own monitor
+	private static final Map<Integer, ComplexFFT> BLUESTEIN_CACHE = new LinkedHashMap<>(16, 0.75f,
+			true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, ComplexFFT> eldest) {
+			return size() > BLUESTEIN_CACHE_SIZE;
+		}
+	};
+
+	private final int size;
+
+	// radix-2 tables, null for other sizes
+	private final double[] cosTable;
+	private final double[] sinTable;
+	private final int[] bitReversal;
+
+	// Bluestein data, null for power of two sizes
+	private final ComplexFFT convolution;
+	private final double[] chirpRe;
+	private final double[] chirpIm;
+	private final double[] filterRe;
+	private final double[] filterIm;
+
+	public static ComplexFFT forSize(int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException("FFT size must be positive: " + size);
+		}
+		if (Integer.bitCount(size) == 1) {
+			return CACHE.computeIfAbsent(size, ComplexFFT::new);
+		}
+		ComplexFFT fft;
+		synchronized (BLUESTEIN_CACHE) {
+			fft = BLUESTEIN_CACHE.get(size);
+		}
+		if (fft == null) {
+			// built outside the lock: it looks up its power of two transform
+			ComplexFFT created = new ComplexFFT(size);
+			synchronized (BLUESTEIN_CACHE) {
+				fft = BLUESTEIN_CACHE.putIfAbsent(size, created);
+			}
+			if (fft == null) {
+				fft = created;
+			}
+		}
+		return fft;
+	}
+
+	private ComplexFFT(int size) {
+		this.size = size;
+		if (Integer.bitCount(size) == 1) {
+			int half = size / 2;
+			cosTable = new double[half];
+			sinTable = new double[half];
+			for (int k = 0; k < half; k++) {
+				double angle = 2 * PI * k / size;
+				cosTable[k] = cos(angle);
+				sinTable[k] = -sin(angle);
+			}
+			bitReversal = new int[size];
+			int bits = Integer.numberOfTrailingZeros(size);
+			for (int i = 0; i < size; i++) {
+				bitReversal[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+			}
+			convolution = null;
+			chirpRe = chirpIm = filterRe = filterIm = null;
+		} else {
+			cosTable = sinTable = null;
+			bitReversal = null;
+
+			int m = Integer.highestOneBit(2 * size - 1) << 1;
+			convolution = forSize(m);
+			chirpRe = new double[size];
+			chirpIm = new double[size];
+			for (int k = 0; k < size; k++) {
+				// k^2 mod 2n keeps the angle small and accurate for large k
+				double angle = PI * ((long) k * k % (2L * size)) / size;
+				chirpRe[k] = cos(angle);
+				chirpIm[k] = -sin(angle);
+			}
+			filterRe = new double[m];
+			filterIm = new double[m];
+			filterRe[0] = chirpRe[0];
+			filterIm[0] = -chirpIm[0];
+			for (int k = 1; k < size; k++) {
+				filterRe[k] = filterRe[m - k] = chirpRe[k];
+				filterIm[k] = filterIm[m - k] = -chirpIm[k];
+			}
+			convolution.transform(filterRe, filterIm);
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void transform(double[] re, double[] im) {
+		checkLength(re);
+		checkLength(im);
+		if (bitReversal != null) {
+			radix2(re, im);
+		} else {
+			bluestein(re, im);
+		}
+	}
+
+	public void inverse(double[] re, double[] im) {
+		// inverse(x) = conjugate(transform(conjugate(x))) / n
+		checkLength(re);
+		checkLength(im);
+		negate(im);
+		transform(re, im);
+		double scale = 1.0 / size;
+		for (int i = 0; i < size; i++) {
+			re[i] *= scale;
+			im[i] *= -scale;
+		}
+	}
+
+	public ComplexVector transform(ComplexVector vector) {
+		transform(vector.getRealParts(), vector.getImaginaryParts());
+		return vector;
+	}
+
+	public ComplexVector inverse(ComplexVector vector) {
+		inverse(vector.getRealParts(), vector.getImaginaryParts());
+		return vector;
+	}
+
+	// returns a new array, values is not modified
+	public Complex[] transform(Complex[] values) {
+		return transform(ComplexVector.of(values)).toArray();
+	}
+
+	// returns a new array, values is not modified
+	public Complex[] inverse(Complex[] values) {
+		return inverse(ComplexVector.of(values)).toArray();
+	}
+
+	private void radix2(double[] re, double[] im) {
+		for (int i = 0; i < size; i++) {
+			int j = bitReversal[i];
+			if (j > i) {
+				double tmp = re[i];
+				re[i] = re[j];
+				re[j] = tmp;
+				tmp = im[i];
+				im[i] = im[j];
+				im[j] = tmp;
+			}
+		}
+
+		int butterflies = size / 2;
+		for (int half = 1; half < size; half <<= 1) {
+			int currentHalf = half;
+			int step = size / (2 * half);
+			if (butterflies >= PARALLEL_THRESHOLD) {
+				IntStream.range(0, butterflies / CHUNK_SIZE).parallel()
+						.forEach(chunk -> butterflies(re, im, currentHalf, step,
+								chunk * CHUNK_SIZE, (chunk + 1) * CHUNK_SIZE));
+			} else {
+				butterflies(re, im, half, step, 0, butterflies);
+			}
+		}
+	}
+
+	// butterflies [from, to) of the stage that combines blocks of 2 * half
+	private void butterflies(double[] re, double[] im, int half, int step, int from, int to) {
+		for (int k = from; k < to; k++) {
+			int j = k & (half - 1);
+			int i = ((k - j) << 1) + j;
+			int l = i + half;
+			double wRe = cosTable[j * step];
+			double wIm = sinTable[j * step];
+			double tRe = wRe * re[l] - wIm * im[l];
+			double tIm = wRe * im[l] + wIm * re[l];
+			re[l] = re[i] - tRe;
+			im[l] = im[i] - tIm;
+			re[i] += tRe;
+			im[i] += tIm;
+		}
+	}
+
+	private void bluestein(double[] re, double[] im) {
+		int m = convolution.size();
+		double[] aRe = new double[m];
+		double[] aIm = new double[m];
+		for (int k = 0; k < size; k++) {
+			aRe[k] = re[k] * chirpRe[k] - im[k] * chirpIm[k];
+			aIm[k] = re[k] * chirpIm[k] + im[k] * chirpRe[k];
+		}
+		convolution.transform(aRe, aIm);
+		for (int k = 0; k < m; k++) {
+			double newRe = aRe[k] * filterRe[k] - aIm[k] * filterIm[k];
+			aIm[k] = aRe[k] * filterIm[k] + aIm[k] * filterRe[k];
+			aRe[k] = newRe;
+		}
+		convolution.inverse(aRe, aIm);
+		for (int k = 0; k < size; k++) {
+			re[k] = aRe[k] * chirpRe[k] - aIm[k] * chirpIm[k];
+			im[k] = aRe[k] * chirpIm[k] + aIm[k] * chirpRe[k];
+		}
+	}
+
+	private static void negate(double[] values) {
+		for (int i = 0; i < values.length; i++) {
+			values[i] = -values[i];
+		}
+	}
+
+	private void checkLength(double[] values) {
+		if (values.length != size) {
+			throw new IllegalArgumentException("Array length " + values.length
+					+ " does not match FFT size " + size);
+		}
+	}
+}
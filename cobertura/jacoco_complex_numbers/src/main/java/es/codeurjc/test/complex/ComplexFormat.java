@@ -0,0 +1,279 @@
+package es.codeurjc.test.complex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Text form of complex numbers, the one produced by Complex.toString():
+//
+//   <real> + <imaginary>i
+//
+// The parser also accepts "-" as separator ("3.0 - 2.5i"), any amount of
+// spaces around the tokens and the NaN / Infinity forms of Double.toString.
+// Decimal numbers whose significant digits form an integer of at most 2^53
+// (every number of up to 15 digits, and some of 16) and whose decimal
+// exponent is within +-22 are converted without creating any object; the
+// rest fall back to Double.parseDouble. Malformed text throws
+// NumberFormatException.
+public class ComplexFormat {
+
+	// 10^0 .. 10^22 are exact doubles
+	private static final double[] POWERS_OF_TEN = new double[23];
+
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
+	private ComplexFormat() {
+	}
+
+	public static Complex parse(CharSequence text) {
+		return parse(text, 0, text.length());
+	}
+
+	public static Complex parse(CharSequence text, int from, int to) {
+		checkRange(from, to, text.length());
+		return parse(text, null, from, to);
+	}
+
+	// parses the ASCII bytes between the position and the limit of buffer,
+	// the position is not modified
+	public static Complex parse(ByteBuffer buffer) {
+		return parse(buffer, buffer.position(), buffer.limit());
+	}
+
+	// parses the ASCII bytes in [from, to) of buffer
+	public static Complex parse(ByteBuffer buffer, int from, int to) {
+		checkRange(from, to, buffer.limit());
+		return parse(null, buffer, from, to);
+	}
+
+	public static StringBuilder format(Complex complex, StringBuilder builder) {
+		return format(complex.getRealPart(), complex.getImaginaryPart(), builder);
+	}
+
+	public static StringBuilder format(double realPart, double imaginaryPart,
+			StringBuilder builder) {
+		return builder.append(realPart).append(" + ").append(imaginaryPart).append("i ");
+	}
+
+	// a StringBuilder gets the doubles appended directly, any other target
+	// needs them as strings
+	public static <A extends Appendable> A format(Complex complex, A appendable)
+			throws IOException {
+		if (appendable instanceof StringBuilder builder) {
+			format(complex, builder);
+			return appendable;
+		}
+		appendable.append(Double.toString(complex.getRealPart())).append(" + ")
+				.append(Double.toString(complex.getImaginaryPart())).append("i ");
+		return appendable;
+	}
+
+	private static Complex parse(CharSequence chars, ByteBuffer bytes, int from, int to) {
+		Cursor cursor = CURSOR.get();
+		if (cursor.inUse) {
+			// a CharSequence that parses from its own charAt
+			cursor = new Cursor();
+		}
+		cursor.start(chars, bytes, from, to);
+		try {
+			return parseComplex(cursor);
+		} finally {
+			cursor.finish();
+		}
+	}
+
+	private static void checkRange(int from, int to, int length) {
+		if (from < 0 || to > length || from > to) {
+			throw new IndexOutOfBoundsException("Range [" + from + ", " + to
+					+ ") out of bounds for length " + length);
+		}
+	}
+
+	// The scanner is a set of static methods over a Cursor, the text being
+	// parsed and the position in it. Each thread reuses its own cursor, so a
+	// parse creates nothing but the result
+	private static final ThreadLocal<Cursor> CURSOR = ThreadLocal.withInitial(Cursor::new);
+
+	private static class Cursor {
+
+		// one of them is set while parsing, the bytes are read as ISO-8859-1
+		CharSequence chars;
+		ByteBuffer bytes;
+		int pos;
+		int end;
+		boolean inUse;
+
+		void start(CharSequence chars, ByteBuffer bytes, int from, int to) {
+			this.chars = chars;
+			this.bytes = bytes;
+			this.pos = from;
+			this.end = to;
+			this.inUse = true;
+		}
+
+		// drops the text so the cursor does not keep it alive
+		void finish() {
+			chars = null;
+			bytes = null;
+			inUse = false;
+		}
+	}
+
+	private static Complex parseComplex(Cursor cursor) {
+		skipSpaces(cursor);
+		double realPart = parseDouble(cursor);
+		skipSpaces(cursor);
+		char separator = peek(cursor);
+		if (separator != '+' && separator != '-') {
+			throw error(cursor, "'+' or '-' expected");
+		}
+		cursor.pos++;
+		skipSpaces(cursor);
+		double imaginaryPart = parseDouble(cursor);
+		if (peek(cursor) != 'i') {
+			throw error(cursor, "'i' expected");
+		}
+		cursor.pos++;
+		skipSpaces(cursor);
+		if (cursor.pos != cursor.end) {
+			throw error(cursor, "unexpected text after the number");
+		}
+		return new Complex(realPart, separator == '-' ? -imaginaryPart : imaginaryPart);
+	}
+
+	private static double parseDouble(Cursor cursor) {
+		int start = cursor.pos;
+		boolean negative = false;
+		char c = peek(cursor);
+		if (c == '+' || c == '-') {
+			negative = c == '-';
+			cursor.pos++;
+		}
+		if (matches(cursor, "NaN") || matches(cursor, "Infinity")) {
+			return slowParse(cursor, start, cursor.pos);
+		}
+
+		// up to 18 significant digits are kept in the mantissa, the
+		// rest only move the decimal exponent
+		long mantissa = 0;
+		int significantDigits = 0;
+		int exponent = 0;
+		boolean anyDigit = false;
+		boolean fraction = false;
+		boolean exact = true;
+		for (;;) {
+			c = peek(cursor);
+			if (isDigit(c)) {
+				int digit = c - '0';
+				if (significantDigits < 18) {
+					mantissa = mantissa * 10 + digit;
+					if (mantissa != 0) {
+						significantDigits++;
+					}
+					if (fraction) {
+						exponent--;
+					}
+				} else {
+					if (!fraction) {
+						exponent++;
+					}
+					if (digit != 0) {
+						exact = false;
+					}
+				}
+				anyDigit = true;
+				cursor.pos++;
+			} else if (c == '.' && !fraction) {
+				fraction = true;
+				cursor.pos++;
+			} else {
+				break;
+			}
+		}
+		if (!anyDigit) {
+			throw error(cursor, "number expected");
+		}
+
+		c = peek(cursor);
+		if (c == 'e' || c == 'E') {
+			cursor.pos++;
+			boolean negativeExponent = false;
+			c = peek(cursor);
+			if (c == '+' || c == '-') {
+				negativeExponent = c == '-';
+				cursor.pos++;
+			}
+			if (!isDigit(peek(cursor))) {
+				throw error(cursor, "exponent digit expected");
+			}
+			int value = 0;
+			while (isDigit(peek(cursor))) {
+				value = Math.min(value * 10 + (peek(cursor) - '0'), 100_000);
+				cursor.pos++;
+			}
+			exponent += negativeExponent ? -value : value;
+		}
+
+		// mantissa and power of ten are exact doubles, so a single
+		// multiplication or division gives the correctly rounded value
+		if (exact && mantissa <= MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22) {
+			double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent]
+					: mantissa / POWERS_OF_TEN[-exponent];
+			return negative ? -value : value;
+		}
+		return slowParse(cursor, start, cursor.pos);
+	}
+
+	private static boolean matches(Cursor cursor, String token) {
+		if (cursor.end - cursor.pos < token.length()) {
+			return false;
+		}
+		for (int i = 0; i < token.length(); i++) {
+			if (charAt(cursor, cursor.pos + i) != token.charAt(i)) {
+				return false;
+			}
+		}
+		cursor.pos += token.length();
+		return true;
+	}
+
+	private static double slowParse(Cursor cursor, int start, int to) {
+		StringBuilder builder = new StringBuilder(to - start);
+		for (int i = start; i < to; i++) {
+			builder.append(charAt(cursor, i));
+		}
+		return Double.parseDouble(builder.toString());
+	}
+
+	private static void skipSpaces(Cursor cursor) {
+		while (cursor.pos < cursor.end && charAt(cursor, cursor.pos) == ' ') {
+			cursor.pos++;
+		}
+	}
+
+	private static char peek(Cursor cursor) {
+		return cursor.pos < cursor.end ? charAt(cursor, cursor.pos) : '\0';
+	}
+
+	private static char charAt(Cursor cursor, int index) {
+		if (cursor.bytes != null) {
+			return (char) (cursor.bytes.get(index) & 0xff);
+		}
+		return cursor.chars.charAt(index);
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static NumberFormatException error(Cursor cursor, String message) {
+		return new NumberFormatException("Invalid complex number, " + message
+				+ " at index " + cursor.pos);
+	}
+}
@@ -0,0 +1,17 @@
+package es.codeurjc.test.complex;
+
+// Element-wise operations over complex numbers stored as separate real
+// and imaginary arrays. Destination arrays may be the same as the sources.
+interface ComplexKernel {
+
+	void add(double[] re1, double[] im1, double[] re2, double[] im2, double[] destRe,
+			double[] destIm, int length);
+
+	void times(double[] re1, double[] im1, double[] re2, double[] im2, double[] destRe,
+			double[] destIm, int length);
+
+	void divides(double[] re1, double[] im1, double[] re2, double[] im2, double[] destRe,
+			double[] destIm, int length);
+
+	void abs(double[] re, double[] im, double[] dest, int length);
+}
@@ -0,0 +1,293 @@
+package es.codeurjc.test.complex;
+
+import java.util.stream.IntStream;
+
+// Dense matrix of complex numbers stored row by row in a single double[]
+// with interleaved parts: element (i, j) is at data[2 * (i * columns + j)]
+// (real part) and the next position (imaginary part). Operations return
+// new matrices and leave their operands unchanged.
+public class ComplexMatrix {
+
+	// rows, columns and inner dimension are walked in tiles of BLOCK_SIZE
+	// so the tiles of the three matrices stay in cache
+	static final int BLOCK_SIZE = 64;
+
+	// multiplications with at least this many scalar products use all cores
+	static final long PARALLEL_THRESHOLD = 1L << 18;
+
+	private final int rows;
+	private final int columns;
+	private final double[] data;
+
+	public ComplexMatrix(int rows, int columns) {
+		if (rows < 0 || columns < 0) {
+			throw new IllegalArgumentException("Invalid matrix size " + rows + "x" + columns);
+		}
+		this.rows = rows;
+		this.columns = columns;
+		this.data = new double[storageLength(rows, columns)];
+	}
+
+	// two doubles per element, which must fit in a single array
+	private static int storageLength(int rows, int columns) {
+		try {
+			return Math.multiplyExact(2, Math.multiplyExact(rows, columns));
+		} catch (ArithmeticException e) {
+			throw new IllegalArgumentException("Matrix of " + rows + "x" + columns
+					+ " is too large, it needs more than " + Integer.MAX_VALUE + " doubles");
+		}
+	}
+
+	public static ComplexMatrix of(Complex[][] values) {
+		int columns = values.length == 0 ? 0 : values[0].length;
+		ComplexMatrix matrix = new ComplexMatrix(values.length, columns);
+		for (int i = 0; i < values.length; i++) {
+			if (values[i].length != columns) {
+				throw new IllegalArgumentException("Row " + i + " has " + values[i].length
+						+ " columns instead of " + columns);
+			}
+			for (int j = 0; j < columns; j++) {
+				matrix.set(i, j, values[i][j]);
+			}
+		}
+		return matrix;
+	}
+
+	public static ComplexMatrix identity(int size) {
+		ComplexMatrix matrix = new ComplexMatrix(size, size);
+		for (int i = 0; i < size; i++) {
+			matrix.data[matrix.index(i, i)] = 1;
+		}
+		return matrix;
+	}
+
+	public Complex[][] toArray() {
+		Complex[][] values = new Complex[rows][columns];
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < columns; j++) {
+				values[i][j] = get(i, j);
+			}
+		}
+		return values;
+	}
+
+	public int rows() {
+		return rows;
+	}
+
+	public int columns() {
+		return columns;
+	}
+
+	public Complex get(int row, int column) {
+		int index = checkedIndex(row, column);
+		return new Complex(data[index], data[index + 1]);
+	}
+
+	public void set(int row, int column, double realPart, double imaginaryPart) {
+		int index = checkedIndex(row, column);
+		data[index] = realPart;
+		data[index + 1] = imaginaryPart;
+	}
+
+	public void set(int row, int column, Complex complex) {
+		set(row, column, complex.getRealPart(), complex.getImaginaryPart());
+	}
+
+	// return a new matrix whose value is (this * matrix)
+	public ComplexMatrix times(ComplexMatrix matrix) {
+		if (columns != matrix.rows) {
+			throw new IllegalArgumentException("Cannot multiply " + rows + "x" + columns
+					+ " by " + matrix.rows + "x" + matrix.columns);
+		}
+		ComplexMatrix result = new ComplexMatrix(rows, matrix.columns);
+		int rowBlocks = (rows + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		IntStream blocks = IntStream.range(0, rowBlocks);
+		if ((long) rows * columns * matrix.columns >= PARALLEL_THRESHOLD) {
+			blocks = blocks.parallel();
+		}
+		// every row block writes its own rows of the result
+		blocks.forEach(block -> multiplyRowBlock(matrix, result, block * BLOCK_SIZE));
+		return result;
+	}
+
+	private void multiplyRowBlock(ComplexMatrix matrix, ComplexMatrix result, int rowStart) {
+		int rowEnd = Math.min(rowStart + BLOCK_SIZE, rows);
+		int inner = columns;
+		int resultColumns = matrix.columns;
+		double[] b = matrix.data;
+		double[] c = result.data;
+		for (int kStart = 0; kStart < inner; kStart += BLOCK_SIZE) {
+			int kEnd = Math.min(kStart + BLOCK_SIZE, inner);
+			for (int jStart = 0; jStart < resultColumns; jStart += BLOCK_SIZE) {
+				int jEnd = Math.min(jStart + BLOCK_SIZE, resultColumns);
+				for (int i = rowStart; i < rowEnd; i++) {
+					int cRow = 2 * i * resultColumns;
+					for (int k = kStart; k < kEnd; k++) {
+						int aIndex = index(i, k);
+						double aRe = data[aIndex];
+						double aIm = data[aIndex + 1];
+						int bRow = 2 * k * resultColumns;
+						for (int j = jStart; j < jEnd; j++) {
+							double bRe = b[bRow + 2 * j];
+							double bIm = b[bRow + 2 * j + 1];
+							c[cRow + 2 * j] += aRe * bRe - aIm * bIm;
+							c[cRow + 2 * j + 1] += aRe * bIm + aIm * bRe;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	public ComplexMatrix transpose() {
+		return transpose(1);
+	}
+
+	public ComplexMatrix conjugateTranspose() {
+		return transpose(-1);
+	}
+
+	// tiled so both source rows and destination rows are read sequentially
+	private ComplexMatrix transpose(double imaginarySign) {
+		ComplexMatrix result = new ComplexMatrix(columns, rows);
+		for (int iStart = 0; iStart < rows; iStart += BLOCK_SIZE) {
+			int iEnd = Math.min(iStart + BLOCK_SIZE, rows);
+			for (int jStart = 0; jStart < columns; jStart += BLOCK_SIZE) {
+				int jEnd = Math.min(jStart + BLOCK_SIZE, columns);
+				for (int i = iStart; i < iEnd; i++) {
+					for (int j = jStart; j < jEnd; j++) {
+						int from = index(i, j);
+						int to = result.index(j, i);
+						result.data[to] = data[from];
+						result.data[to + 1] = imaginarySign * data[from + 1];
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	// solves this * X = b with an LU decomposition with partial pivoting
+	public ComplexMatrix solve(ComplexMatrix b) {
+		if (rows != columns) {
+			throw new IllegalArgumentException("Matrix must be square to solve, it is " + rows
+					+ "x" + columns);
+		}
+		if (b.rows != rows) {
+			throw new IllegalArgumentException("Right hand side has " + b.rows
+					+ " rows instead of " + rows);
+		}
+		int n = rows;
+		double[] lu = data.clone();
+		ComplexMatrix x = new ComplexMatrix(b.rows, b.columns);
+		System.arraycopy(b.data, 0, x.data, 0, b.data.length);
+		int rowLength = 2 * n;
+		int xRowLength = 2 * b.columns;
+
+		for (int k = 0; k < n; k++) {
+			int pivot = k;
+			double pivotAbs = Complex.magnitude(lu[2 * (k * n + k)], lu[2 * (k * n + k) + 1]);
+			for (int i = k + 1; i < n; i++) {
+				double abs = Complex.magnitude(lu[2 * (i * n + k)], lu[2 * (i * n + k) + 1]);
+				if (abs > pivotAbs) {
+					pivot = i;
+					pivotAbs = abs;
+				}
+			}
+			if (pivotAbs == 0.0) {
+				throw new ArithmeticException("matrix is singular");
+			}
+			if (pivot != k) {
+				swapRows(lu, rowLength, pivot, k);
+				swapRows(x.data, xRowLength, pivot, k);
+			}
+
+			int kk = 2 * (k * n + k);
+			double pRe = lu[kk];
+			double pIm = lu[kk + 1];
+			double scale = 1.0 / (pRe * pRe + pIm * pIm);
+			for (int i = k + 1; i < n; i++) {
+				// factor = lu[i][k] / pivot
+				int ik = 2 * (i * n + k);
+				double fRe = (lu[ik] * pRe + lu[ik + 1] * pIm) * scale;
+				double fIm = (lu[ik + 1] * pRe - lu[ik] * pIm) * scale;
+				lu[ik] = fRe;
+				lu[ik + 1] = fIm;
+				subtractScaledRow(lu, i * rowLength, k * rowLength, fRe, fIm, 2 * (k + 1),
+						rowLength);
+				subtractScaledRow(x.data, i * xRowLength, k * xRowLength, fRe, fIm, 0,
+						xRowLength);
+			}
+		}
+
+		// back substitution, L was already applied to x during elimination
+		for (int k = n - 1; k >= 0; k--) {
+			int kk = 2 * (k * n + k);
+			double pRe = lu[kk];
+			double pIm = lu[kk + 1];
+			double scale = 1.0 / (pRe * pRe + pIm * pIm);
+			for (int j = 0; j < b.columns; j++) {
+				int xk = k * xRowLength + 2 * j;
+				double re = x.data[xk];
+				double im = x.data[xk + 1];
+				for (int i = k + 1; i < n; i++) {
+					int ki = 2 * (k * n + i);
+					int xi = i * xRowLength + 2 * j;
+					re -= lu[ki] * x.data[xi] - lu[ki + 1] * x.data[xi + 1];
+					im -= lu[ki] * x.data[xi + 1] + lu[ki + 1] * x.data[xi];
+				}
+				x.data[xk] = (re * pRe + im * pIm) * scale;
+				x.data[xk + 1] = (im * pRe - re * pIm) * scale;
+			}
+		}
+		return x;
+	}
+
+	// solves this * x = b for a single right hand side
+	public Complex[] solve(Complex[] b) {
+		ComplexMatrix column = new ComplexMatrix(b.length, 1);
+		for (int i = 0; i < b.length; i++) {
+			column.set(i, 0, b[i]);
+		}
+		ComplexMatrix x = solve(column);
+		Complex[] result = new Complex[b.length];
+		for (int i = 0; i < b.length; i++) {
+			result[i] = x.get(i, 0);
+		}
+		return result;
+	}
+
+	private static void swapRows(double[] values, int rowLength, int first, int second) {
+		int a = first * rowLength;
+		int b = second * rowLength;
+		for (int i = 0; i < rowLength; i++) {
+			double tmp = values[a + i];
+			values[a + i] = values[b + i];
+			values[b + i] = tmp;
+		}
+	}
+
+	// values[target + from .. target + to) -= factor * values[source + from .. source + to)
+	private static void subtractScaledRow(double[] values, int target, int source, double fRe,
+			double fIm, int from, int to) {
+		for (int j = from; j < to; j += 2) {
+			double re = values[source + j];
+			double im = values[source + j + 1];
+			values[target + j] -= fRe * re - fIm * im;
+			values[target + j + 1] -= fRe * im + fIm * re;
+		}
+	}
+
+	private int index(int row, int column) {
+		return 2 * (row * columns + column);
+	}
+
+	private int checkedIndex(int row, int column) {
+		if (row < 0 || row >= rows || column < 0 || column >= columns) {
+			throw new IndexOutOfBoundsException("Element (" + row + ", " + column
+					+ ") out of bounds for " + rows + "x" + columns + " matrix");
+		}
+		return index(row, column);
+	}
+}
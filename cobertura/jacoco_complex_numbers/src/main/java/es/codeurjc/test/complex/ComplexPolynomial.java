@@ -0,0 +1,247 @@
+package es.codeurjc.test.complex;
+
+import java.util.stream.IntStream;
+
+// Polynomial c0 + c1 x + ... + cn x^n with complex coefficients, stored as
+// primitive arrays. Evaluation uses Horner's rule on primitive locals, and
+// root finding uses the Aberth-Ehrlich method, updating every root
+// simultaneously (in parallel for high degrees).
+public class ComplexPolynomial {
+
+	// points evaluated together per coefficient pass, small enough to stay
+	// in the L1 cache
+	static final int BATCH_CHUNK = 1024;
+
+	// degree from which the per-root updates are spread across cores
+	static final int PARALLEL_DEGREE = 64;
+
+	private static final int MAX_ITERATIONS = 500;
+
+	private static final double TOLERANCE = 1e-14;
+
+	private final double[] re;
+	private final double[] im;
+
+	// coefficients from the constant term up; trailing zeros are dropped
+	public ComplexPolynomial(Complex... coefficients) {
+		int length = coefficients.length;
+		while (length > 1 && coefficients[length - 1].getRealPart() == 0
+				&& coefficients[length - 1].getImaginaryPart() == 0) {
+			length--;
+		}
+		re = new double[Math.max(length, 1)];
+		im = new double[re.length];
+		for (int i = 0; i < length; i++) {
+			re[i] = coefficients[i].getRealPart();
+			im[i] = coefficients[i].getImaginaryPart();
+		}
+	}
+
+	private ComplexPolynomial(double[] re, double[] im) {
+		this.re = re;
+		this.im = im;
+	}
+
+	public int degree() {
+		return re.length - 1;
+	}
+
+	public Complex getCoefficient(int power) {
+		return new Complex(re[power], im[power]);
+	}
+
+	public Complex evaluate(Complex x) {
+		return evaluate(x.getRealPart(), x.getImaginaryPart(), new MutableComplex()).toImmutable();
+	}
+
+	// result = p(xRe + xIm i), without allocating
+	public MutableComplex evaluate(double xRe, double xIm, MutableComplex result) {
+		double accRe = re[re.length - 1];
+		double accIm = im[im.length - 1];
+		for (int k = re.length - 2; k >= 0; k--) {
+			double newRe = accRe * xRe - accIm * xIm + re[k];
+			accIm = accRe * xIm + accIm * xRe + im[k];
+			accRe = newRe;
+		}
+		return result.set(accRe, accIm);
+	}
+
+	// dest[i] = p(points[i]); points and dest may be the same vector
+	public ComplexVector evaluate(ComplexVector points, ComplexVector dest) {
+		if (points.size() != dest.size()) {
+			throw new IllegalArgumentException("Destination size " + dest.size()
+					+ " does not match " + points.size());
+		}
+		double[] xRe = points.getRealParts();
+		double[] xIm = points.getImaginaryParts();
+		double[] destRe = dest.getRealParts();
+		double[] destIm = dest.getImaginaryParts();
+		int n = re.length - 1;
+		double[] chunkRe = new double[BATCH_CHUNK];
+		double[] chunkIm = new double[BATCH_CHUNK];
+		// one Horner step over a whole chunk of points per coefficient, so the
+		// inner loop has no dependency between iterations
+		for (int from = 0; from < points.size(); from += BATCH_CHUNK) {
+			int count = Math.min(BATCH_CHUNK, points.size() - from);
+			for (int i = 0; i < count; i++) {
+				chunkRe[i] = re[n];
+				chunkIm[i] = im[n];
+			}
+			for (int k = n - 1; k >= 0; k--) {
+				double cRe = re[k];
+				double cIm = im[k];
+				for (int i = 0; i < count; i++) {
+					double pRe = xRe[from + i];
+					double pIm = xIm[from + i];
+					double accRe = chunkRe[i];
+					double accIm = chunkIm[i];
+					chunkRe[i] = accRe * pRe - accIm * pIm + cRe;
+					chunkIm[i] = accRe * pIm + accIm * pRe + cIm;
+				}
+			}
+			System.arraycopy(chunkRe, 0, destRe, from, count);
+			System.arraycopy(chunkIm, 0, destIm, from, count);
+		}
+		return dest;
+	}
+
+	public ComplexPolynomial derivative() {
+		if (re.length == 1) {
+			return new ComplexPolynomial(new double[1], new double[1]);
+		}
+		double[] newRe = new double[re.length - 1];
+		double[] newIm = new double[re.length - 1];
+		for (int k = 1; k < re.length; k++) {
+			newRe[k - 1] = k * re[k];
+			newIm[k - 1] = k * im[k];
+		}
+		return new ComplexPolynomial(newRe, newIm);
+	}
+
+	// all the roots, repeated according to their multiplicity. Throws
+	// ArithmeticException when they have not converged after MAX_ITERATIONS
+	public Complex[] roots() {
+		int n = degree();
+		if (n == 0) {
+			return new Complex[0];
+		}
+		ComplexPolynomial derivative = derivative();
+		double[] zRe = new double[n];
+		double[] zIm = new double[n];
+		initialGuesses(zRe, zIm);
+		double[] nextRe = new double[n];
+		double[] nextIm = new double[n];
+		double[] correction = new double[n];
+		boolean converged = false;
+
+		for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+			double[] currentRe = zRe;
+			double[] currentIm = zIm;
+			double[] targetRe = nextRe;
+			double[] targetIm = nextIm;
+			IntStream indexes = IntStream.range(0, n);
+			if (n >= PARALLEL_DEGREE) {
+				indexes = indexes.parallel();
+			}
+			// every root is updated from the previous approximations only, so
+			// the updates are independent
+			indexes.forEach(i -> correction[i] = aberthStep(derivative, currentRe, currentIm,
+					targetRe, targetIm, i));
+
+			nextRe = zRe;
+			nextIm = zIm;
+			zRe = targetRe;
+			zIm = targetIm;
+			double maxCorrection = 0;
+			for (double value : correction) {
+				maxCorrection = Math.max(maxCorrection, value);
+			}
+			if (maxCorrection <= TOLERANCE) {
+				converged = true;
+				break;
+			}
+		}
+		if (!converged) {
+			throw new ArithmeticException("Roots did not converge after " + MAX_ITERATIONS
+					+ " iterations");
+		}
+
+		Complex[] roots = new Complex[n];
+		for (int i = 0; i < n; i++) {
+			roots[i] = new Complex(zRe[i], zIm[i]);
+		}
+		return roots;
+	}
+
+	// writes the new approximation of root i and returns the size of the
+	// correction relative to the root
+	private double aberthStep(ComplexPolynomial derivative, double[] zRe, double[] zIm,
+			double[] targetRe, double[] targetIm, int i) {
+		double xRe = zRe[i];
+		double xIm = zIm[i];
+		MutableComplex value = evaluate(xRe, xIm, new MutableComplex());
+		if (value.getRealPart() == 0 && value.getImaginaryPart() == 0) {
+			targetRe[i] = xRe;
+			targetIm[i] = xIm;
+			return 0;
+		}
+		MutableComplex slope = derivative.evaluate(xRe, xIm, new MutableComplex());
+
+		// offset = ratio / (1 - ratio * sum), with ratio = p(z) / p'(z)
+		double[] offset = new double[2];
+		boolean degenerate = slope.getRealPart() == 0 && slope.getImaginaryPart() == 0;
+		if (!degenerate) {
+			double[] ratio = new double[2];
+			Complex.divide(value.getRealPart(), value.getImaginaryPart(),
+					slope.getRealPart(), slope.getImaginaryPart(), ratio, 0, ratio, 1);
+
+			// sum of 1 / (z_i - z_j)
+			double sumRe = 0;
+			double sumIm = 0;
+			for (int j = 0; j < zRe.length; j++) {
+				if (j != i) {
+					double dRe = xRe - zRe[j];
+					double dIm = xIm - zIm[j];
+					double scale = dRe * dRe + dIm * dIm;
+					if (scale != 0) {
+						sumRe += dRe / scale;
+						sumIm -= dIm / scale;
+					}
+				}
+			}
+
+			double denominatorRe = 1 - (ratio[0] * sumRe - ratio[1] * sumIm);
+			double denominatorIm = -(ratio[0] * sumIm + ratio[1] * sumRe);
+			degenerate = denominatorRe == 0 && denominatorIm == 0;
+			if (!degenerate) {
+				Complex.divide(ratio[0], ratio[1], denominatorRe, denominatorIm,
+						offset, 0, offset, 1);
+			}
+		}
+		if (degenerate || !Double.isFinite(offset[0]) || !Double.isFinite(offset[1])) {
+			// p'(z) == 0 or a degenerate configuration: nudge the root
+			offset[0] = 1e-3 * (1 + Complex.magnitude(xRe, xIm));
+			offset[1] = offset[0];
+		}
+		targetRe[i] = xRe - offset[0];
+		targetIm[i] = xIm - offset[1];
+		return Complex.magnitude(offset[0], offset[1]) / Math.max(1, Complex.magnitude(xRe, xIm));
+	}
+
+	// starting points spread on a circle that contains all the roots
+	private void initialGuesses(double[] zRe, double[] zIm) {
+		int n = degree();
+		double leading = Complex.magnitude(re[n], im[n]);
+		double radius = 0;
+		for (int k = 0; k < n; k++) {
+			radius = Math.max(radius, Complex.magnitude(re[k], im[k]) / leading);
+		}
+		radius = 1 + radius;
+		for (int i = 0; i < n; i++) {
+			// the offset avoids starting on a symmetry axis of real polynomials
+			double angle = 2 * Math.PI * i / n + 0.4;
+			zRe[i] = radius * Math.cos(angle);
+			zIm[i] = radius * Math.sin(angle);
+		}
+	}
+}
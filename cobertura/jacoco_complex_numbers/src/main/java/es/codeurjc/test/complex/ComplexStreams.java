@@ -0,0 +1,310 @@
+package es.codeurjc.test.complex;
+
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Parallel reductions and maps over large complex datasets, built on the
+// common fork-join pool. Work is split in contiguous chunks of CHUNK_SIZE
+// elements (128 KB of re/im data for a ComplexVector) and every chunk is
+// reduced with primitive locals, so no Complex is created per element.
+public class ComplexStreams {
+
+	static final int CHUNK_SIZE = 8192;
+
+	private ComplexStreams() {
+	}
+
+	public static Stream<Complex> stream(ComplexVector vector, boolean parallel) {
+		return StreamSupport.stream(new ComplexVectorSpliterator(vector, 0, vector.size()),
+				parallel);
+	}
+
+	public static Complex sum(Complex[] values) {
+		return reduce(values.length, (from, to) -> {
+			double re = 0;
+			double im = 0;
+			for (int i = from; i < to; i++) {
+				re += values[i].getRealPart();
+				im += values[i].getImaginaryPart();
+			}
+			return new double[] { re, im };
+		}, ComplexStreams::add);
+	}
+
+	public static Complex sum(ComplexVector vector) {
+		double[] res = vector.getRealParts();
+		double[] ims = vector.getImaginaryParts();
+		return reduce(vector.size(), (from, to) -> {
+			double re = 0;
+			double im = 0;
+			for (int i = from; i < to; i++) {
+				re += res[i];
+				im += ims[i];
+			}
+			return new double[] { re, im };
+		}, ComplexStreams::add);
+	}
+
+	public static Complex product(Complex[] values) {
+		return reduce(values.length, (from, to) -> {
+			double re = 1;
+			double im = 0;
+			for (int i = from; i < to; i++) {
+				double otherRe = values[i].getRealPart();
+				double otherIm = values[i].getImaginaryPart();
+				double newRe = re * otherRe - im * otherIm;
+				im = re * otherIm + im * otherRe;
+				re = newRe;
+			}
+			return new double[] { re, im };
+		}, ComplexStreams::times);
+	}
+
+	public static Complex product(ComplexVector vector) {
+		double[] res = vector.getRealParts();
+		double[] ims = vector.getImaginaryParts();
+		return reduce(vector.size(), (from, to) -> {
+			double re = 1;
+			double im = 0;
+			for (int i = from; i < to; i++) {
+				double newRe = re * res[i] - im * ims[i];
+				im = re * ims[i] + im * res[i];
+				re = newRe;
+			}
+			return new double[] { re, im };
+		}, ComplexStreams::times);
+	}
+
+	// sum of a[i] * b[i], without conjugation; conjugate one of the vectors
+	// first to obtain the hermitian inner product
+	public static Complex dot(Complex[] a, Complex[] b) {
+		checkLengths(a.length, b.length);
+		return reduce(a.length, (from, to) -> {
+			double re = 0;
+			double im = 0;
+			for (int i = from; i < to; i++) {
+				double aRe = a[i].getRealPart();
+				double aIm = a[i].getImaginaryPart();
+				double bRe = b[i].getRealPart();
+				double bIm = b[i].getImaginaryPart();
+				re += aRe * bRe - aIm * bIm;
+				im += aRe * bIm + aIm * bRe;
+			}
+			return new double[] { re, im };
+		}, ComplexStreams::add);
+	}
+
+	public static Complex dot(ComplexVector a, ComplexVector b) {
+		checkLengths(a.size(), b.size());
+		double[] aRes = a.getRealParts();
+		double[] aIms = a.getImaginaryParts();
+		double[] bRes = b.getRealParts();
+		double[] bIms = b.getImaginaryParts();
+		return reduce(a.size(), (from, to) -> {
+			double re = 0;
+			double im = 0;
+			for (int i = from; i < to; i++) {
+				re += aRes[i] * bRes[i] - aIms[i] * bIms[i];
+				im += aRes[i] * bIms[i] + aIms[i] * bRes[i];
+			}
+			return new double[] { re, im };
+		}, ComplexStreams::add);
+	}
+
+	// value with the largest abs(), the first one on ties, or null if empty
+	public static Complex maxByAbs(Complex[] values) {
+		int index = indexOfMaxAbs(values.length,
+				i -> Complex.magnitude(values[i].getRealPart(), values[i].getImaginaryPart()));
+		return index < 0 ? null : values[index];
+	}
+
+	// index of the element with the largest abs(), the first one on ties,
+	// or -1 if the vector is empty
+	public static int indexOfMaxAbs(ComplexVector vector) {
+		double[] res = vector.getRealParts();
+		double[] ims = vector.getImaginaryParts();
+		return indexOfMaxAbs(vector.size(), i -> Complex.magnitude(res[i], ims[i]));
+	}
+
+	// dest[i] = operator(values[i]), values and dest may be the same array
+	public static Complex[] map(Complex[] values, UnaryOperator<Complex> operator,
+			Complex[] dest) {
+		checkLengths(values.length, dest.length);
+		ForkJoinPool.commonPool().invoke(new MapTask(values, operator, dest, 0, values.length));
+		return dest;
+	}
+
+	private static int indexOfMaxAbs(int size, IndexToDouble abs) {
+		if (size == 0) {
+			return -1;
+		}
+		// result is { abs, index }
+		double[] max = ForkJoinPool.commonPool().invoke(new ReduceTask(0, size, (from, to) -> {
+			int maxIndex = from;
+			double maxAbs = abs.apply(from);
+			for (int i = from + 1; i < to; i++) {
+				double value = abs.apply(i);
+				if (value > maxAbs) {
+					maxAbs = value;
+					maxIndex = i;
+				}
+			}
+			return new double[] { maxAbs, maxIndex };
+		}, (left, right) -> right[0] > left[0] ? right : left));
+		return (int) max[1];
+	}
+
+	private static Complex reduce(int size, RangeReducer reducer,
+			BinaryOperator<double[]> combiner) {
+		double[] result = ForkJoinPool.commonPool()
+				.invoke(new ReduceTask(0, size, reducer, combiner));
+		return new Complex(result[0], result[1]);
+	}
+
+	private static double[] add(double[] left, double[] right) {
+		return new double[] { left[0] + right[0], left[1] + right[1] };
+	}
+
+	private static double[] times(double[] left, double[] right) {
+		return new double[] { left[0] * right[0] - left[1] * right[1],
+				left[0] * right[1] + left[1] * right[0] };
+	}
+
+	private static void checkLengths(int length, int otherLength) {
+		if (length != otherLength) {
+			throw new IllegalArgumentException("Length " + otherLength + " does not match "
+					+ length);
+		}
+	}
+
+	private interface RangeReducer {
+		double[] reduce(int from, int to);
+	}
+
+	private interface IndexToDouble {
+		double apply(int index);
+	}
+
+	// halves the range until it fits in a chunk; the left part is forked and
+	// the right one computed in the current thread. Combination keeps the
+	// original order of the elements
+	private static class ReduceTask extends RecursiveTask<double[]> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final RangeReducer reducer;
+		private final BinaryOperator<double[]> combiner;
+
+		ReduceTask(int from, int to, RangeReducer reducer, BinaryOperator<double[]> combiner) {
+			this.from = from;
+			this.to = to;
+			this.reducer = reducer;
+			this.combiner = combiner;
+		}
+
+		@Override
+		protected double[] compute() {
+			if (to - from <= CHUNK_SIZE) {
+				return reducer.reduce(from, to);
+			}
+			int middle = (from + to) >>> 1;
+			ReduceTask left = new ReduceTask(from, middle, reducer, combiner);
+			left.fork();
+			double[] right = new ReduceTask(middle, to, reducer, combiner).compute();
+			return combiner.apply(left.join(), right);
+		}
+	}
+
+	private static class MapTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Complex[] values;
+		private final UnaryOperator<Complex> operator;
+		private final Complex[] dest;
+		private final int from;
+		private final int to;
+
+		MapTask(Complex[] values, UnaryOperator<Complex> operator, Complex[] dest, int from,
+				int to) {
+			this.values = values;
+			this.operator = operator;
+			this.dest = dest;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= CHUNK_SIZE) {
+				for (int i = from; i < to; i++) {
+					dest[i] = operator.apply(values[i]);
+				}
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new MapTask(values, operator, dest, from, middle),
+					new MapTask(values, operator, dest, middle, to));
+		}
+	}
+
+	private static class ComplexVectorSpliterator implements Spliterator<Complex> {
+
+		private final ComplexVector vector;
+		private int index;
+		private final int end;
+
+		ComplexVectorSpliterator(ComplexVector vector, int index, int end) {
+			this.vector = vector;
+			this.index = index;
+			this.end = end;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Complex> action) {
+			if (index >= end) {
+				return false;
+			}
+			action.accept(vector.get(index++));
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super Complex> action) {
+			for (; index < end; index++) {
+				action.accept(vector.get(index));
+			}
+		}
+
+		@Override
+		public Spliterator<Complex> trySplit() {
+			int remaining = end - index;
+			if (remaining <= CHUNK_SIZE) {
+				return null;
+			}
+			int middle = index + remaining / 2;
+			Spliterator<Complex> prefix = new ComplexVectorSpliterator(vector, index, middle);
+			index = middle;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return end - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | NONNULL;
+		}
+	}
+}
@@ -0,0 +1,286 @@
+package es.codeurjc.test.complex;
+
+import static java.lang.Math.*;
+
+// Fixed size sequence of complex numbers stored as two primitive arrays
+// (structure of arrays). Bulk operations work in place or write into a
+// caller supplied destination, so no object is allocated per element.
+public class ComplexVector {
+
+	private final double[] realParts;
+	private final double[] imaginaryParts;
+
+	public ComplexVector(int size) {
+		this(new double[size], new double[size]);
+	}
+
+	// the given arrays are used as backing storage, they are not copied
+	public ComplexVector(double[] realParts, double[] imaginaryParts) {
+		if (realParts.length != imaginaryParts.length) {
+			throw new IllegalArgumentException("Real and imaginary parts must have the same length");
+		}
+		this.realParts = realParts;
+		this.imaginaryParts = imaginaryParts;
+	}
+
+	public static ComplexVector of(Complex... values) {
+		ComplexVector vector = new ComplexVector(values.length);
+		for (int i = 0; i < values.length; i++) {
+			vector.set(i, values[i]);
+		}
+		return vector;
+	}
+
+	public Complex[] toArray() {
+		Complex[] values = new Complex[size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = get(i);
+		}
+		return values;
+	}
+
+	public int size() {
+		return realParts.length;
+	}
+
+	public double[] getRealParts() {
+		return realParts;
+	}
+
+	public double[] getImaginaryParts() {
+		return imaginaryParts;
+	}
+
+	public double getRealPart(int index) {
+		return realParts[index];
+	}
+
+	public double getImaginaryPart(int index) {
+		return imaginaryParts[index];
+	}
+
+	public Complex get(int index) {
+		return new Complex(realParts[index], imaginaryParts[index]);
+	}
+
+	public void set(int index, double realPart, double imaginaryPart) {
+		realParts[index] = realPart;
+		imaginaryParts[index] = imaginaryPart;
+	}
+
+	public void set(int index, Complex complex) {
+		set(index, complex.getRealPart(), complex.getImaginaryPart());
+	}
+
+	// this = this + vector
+	public ComplexVector add(ComplexVector vector) {
+		return add(vector, this);
+	}
+
+	// dest = this + vector
+	public ComplexVector add(ComplexVector vector, ComplexVector dest) {
+		checkSize(vector);
+		checkSize(dest);
+		ComplexArrays.add(realParts, imaginaryParts, vector.realParts, vector.imaginaryParts,
+				dest.realParts, dest.imaginaryParts);
+		return dest;
+	}
+
+	// this = this * vector
+	public ComplexVector times(ComplexVector vector) {
+		return times(vector, this);
+	}
+
+	// dest = this * vector
+	public ComplexVector times(ComplexVector vector, ComplexVector dest) {
+		checkSize(vector);
+		checkSize(dest);
+		ComplexArrays.times(realParts, imaginaryParts, vector.realParts, vector.imaginaryParts,
+				dest.realParts, dest.imaginaryParts);
+		return dest;
+	}
+
+	// this = this / vector
+	public ComplexVector divides(ComplexVector vector) {
+		return divides(vector, this);
+	}
+
+	// dest = this / vector
+	public ComplexVector divides(ComplexVector vector, ComplexVector dest) {
+		checkSize(vector);
+		checkSize(dest);
+		ComplexArrays.divides(realParts, imaginaryParts, vector.realParts, vector.imaginaryParts,
+				dest.realParts, dest.imaginaryParts);
+		return dest;
+	}
+
+	// this = conjugate(this)
+	public ComplexVector conjugate() {
+		return conjugate(this);
+	}
+
+	// dest = conjugate(this)
+	public ComplexVector conjugate(ComplexVector dest) {
+		checkSize(dest);
+		for (int i = 0; i < realParts.length; i++) {
+			dest.realParts[i] = this.realParts[i];
+			dest.imaginaryParts[i] = -this.imaginaryParts[i];
+		}
+		return dest;
+	}
+
+	// this = 1 / this
+	public ComplexVector reciprocal() {
+		return reciprocal(this);
+	}
+
+	// dest = 1 / this, every element bit for bit the scalar Complex.reciprocal
+	public ComplexVector reciprocal(ComplexVector dest) {
+		checkSize(dest);
+		for (int i = 0; i < realParts.length; i++) {
+			Complex.divide(1.0, 0.0, this.realParts[i], this.imaginaryParts[i],
+					dest.realParts, i, dest.imaginaryParts, i);
+		}
+		return dest;
+	}
+
+	// dest[i] = abs(this[i])
+	public double[] abs(double[] dest) {
+		checkLength(dest);
+		ComplexArrays.abs(realParts, imaginaryParts, dest);
+		return dest;
+	}
+
+	// dest[i] = phase(this[i])
+	public double[] phase(double[] dest) {
+		checkLength(dest);
+		for (int i = 0; i < realParts.length; i++) {
+			dest[i] = atan2(imaginaryParts[i], realParts[i]);
+		}
+		return dest;
+	}
+
+	// dest = e^this
+	public ComplexVector exp(ComplexVector dest) {
+		checkSize(dest);
+		for (int i = 0; i < realParts.length; i++) {
+			double scale = Math.exp(realParts[i]);
+			double im = imaginaryParts[i];
+			dest.realParts[i] = scale * cos(im);
+			dest.imaginaryParts[i] = scale * sin(im);
+		}
+		return dest;
+	}
+
+	// dest = log(this), principal value
+	public ComplexVector log(ComplexVector dest) {
+		checkSize(dest);
+		for (int i = 0; i < realParts.length; i++) {
+			double re = realParts[i];
+			double im = imaginaryParts[i];
+			dest.realParts[i] = Math.log(Complex.magnitude(re, im));
+			dest.imaginaryParts[i] = atan2(im, re);
+		}
+		return dest;
+	}
+
+	// dest = sqrt(this), principal value, same formula as Complex.sqrt
+	public ComplexVector sqrt(ComplexVector dest) {
+		checkSize(dest);
+		for (int i = 0; i < realParts.length; i++) {
+			double re = realParts[i];
+			double im = imaginaryParts[i];
+			if (re == 0.0 && im == 0.0) {
+				dest.realParts[i] = 0;
+				dest.imaginaryParts[i] = im;
+				continue;
+			}
+			double t = Math.sqrt((Complex.magnitude(re, im) + Math.abs(re)) / 2);
+			if (re >= 0) {
+				dest.realParts[i] = t;
+				dest.imaginaryParts[i] = im / (2 * t);
+			} else {
+				dest.realParts[i] = Math.abs(im) / (2 * t);
+				dest.imaginaryParts[i] = copySign(t, im);
+			}
+		}
+		return dest;
+	}
+
+	// dest = this^exponent by binary exponentiation, as Complex.pow(int). A
+	// negative exponent raises the reciprocal, so a power that underflows
+	// gives zero; a zero element then throws ArithmeticException before
+	// anything is written
+	public ComplexVector pow(int exponent, ComplexVector dest) {
+		checkSize(dest);
+		if (exponent < 0) {
+			for (int i = 0; i < realParts.length; i++) {
+				if (realParts[i] == 0.0 && imaginaryParts[i] == 0.0) {
+					throw new ArithmeticException("division by zero");
+				}
+			}
+		}
+		long magnitude = Math.abs((long) exponent);
+		for (int i = 0; i < realParts.length; i++) {
+			double squareRe = realParts[i];
+			double squareIm = imaginaryParts[i];
+			if (exponent < 0) {
+				Complex.divide(1.0, 0.0, squareRe, squareIm,
+						dest.realParts, i, dest.imaginaryParts, i);
+				squareRe = dest.realParts[i];
+				squareIm = dest.imaginaryParts[i];
+			}
+			double resultRe = 1;
+			double resultIm = 0;
+			for (long remaining = magnitude; remaining > 0; remaining >>= 1) {
+				if ((remaining & 1) != 0) {
+					double newRe = resultRe * squareRe - resultIm * squareIm;
+					resultIm = resultRe * squareIm + resultIm * squareRe;
+					resultRe = newRe;
+				}
+				if (remaining == 1) {
+					break;
+				}
+				double newSquareRe = squareRe * squareRe - squareIm * squareIm;
+				squareIm = 2 * squareRe * squareIm;
+				squareRe = newSquareRe;
+			}
+			dest.realParts[i] = resultRe;
+			dest.imaginaryParts[i] = resultIm;
+		}
+		return dest;
+	}
+
+	// sinDest = sin(this) and cosDest = cos(this) in a single pass: sin, cos,
+	// sinh and cosh of each part are computed once and shared
+	public void sinCos(ComplexVector sinDest, ComplexVector cosDest) {
+		checkSize(sinDest);
+		checkSize(cosDest);
+		for (int i = 0; i < realParts.length; i++) {
+			double re = realParts[i];
+			double im = imaginaryParts[i];
+			double sinRe = sin(re);
+			double cosRe = cos(re);
+			double sinhIm = sinh(im);
+			double coshIm = cosh(im);
+			sinDest.realParts[i] = sinRe * coshIm;
+			sinDest.imaginaryParts[i] = cosRe * sinhIm;
+			cosDest.realParts[i] = cosRe * coshIm;
+			cosDest.imaginaryParts[i] = -sinRe * sinhIm;
+		}
+	}
+
+	private void checkSize(ComplexVector vector) {
+		if (vector.size() != size()) {
+			throw new IllegalArgumentException("Vector size " + vector.size()
+					+ " does not match " + size());
+		}
+	}
+
+	private void checkLength(double[] dest) {
+		if (dest.length != size()) {
+			throw new IllegalArgumentException("Destination length " + dest.length
+					+ " does not match " + size());
+		}
+	}
+}
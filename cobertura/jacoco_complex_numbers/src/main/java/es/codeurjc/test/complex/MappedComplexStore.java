@@ -0,0 +1,184 @@
+package es.codeurjc.test.complex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Array of complex numbers stored in a file with the ComplexCodec format
+// and accessed through memory mapped buffers, so the data is paged in on
+// demand and never materialized as Complex objects. A single mapping is
+// limited to 2 GB, so the file is mapped in 1 GB segments.
+//
+// Instances are not thread safe for writing; concurrent readers of
+// distinct or unchanged values are fine.
+public class MappedComplexStore implements AutoCloseable {
+
+	private static final int VALUES_PER_SEGMENT_SHIFT = 26;
+	private static final long VALUES_PER_SEGMENT = 1L << VALUES_PER_SEGMENT_SHIFT;
+	private static final long SEGMENT_MASK = VALUES_PER_SEGMENT - 1;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer[] segments;
+	private final long size;
+	private final boolean writable;
+
+	// creates (or truncates) the file to hold size values, all zero
+	public static MappedComplexStore create(Path path, long size) throws IOException {
+		if (size < 0) {
+			throw new IllegalArgumentException("Size must not be negative: " + size);
+		}
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			if (size > 0) {
+				// writing the last byte extends the file without touching the rest
+				channel.write(ByteBuffer.allocate(1), size * ComplexCodec.BYTES - 1);
+			}
+			return new MappedComplexStore(channel, size, true);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	public static MappedComplexStore open(Path path, boolean writable) throws IOException {
+		FileChannel channel = writable
+				? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+				: FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			long bytes = channel.size();
+			if (bytes % ComplexCodec.BYTES != 0) {
+				throw new IOException("File " + path + " has " + bytes
+						+ " bytes, not a multiple of " + ComplexCodec.BYTES);
+			}
+			return new MappedComplexStore(channel, bytes / ComplexCodec.BYTES, writable);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	private MappedComplexStore(FileChannel channel, long size, boolean writable)
+			throws IOException {
+		this.channel = channel;
+		this.size = size;
+		this.writable = writable;
+		int segmentCount = (int) ((size + VALUES_PER_SEGMENT - 1) >>> VALUES_PER_SEGMENT_SHIFT);
+		this.segments = new MappedByteBuffer[segmentCount];
+		MapMode mode = writable ? MapMode.READ_WRITE : MapMode.READ_ONLY;
+		for (int i = 0; i < segmentCount; i++) {
+			long first = i * VALUES_PER_SEGMENT;
+			long count = Math.min(VALUES_PER_SEGMENT, size - first);
+			segments[i] = channel.map(mode, first * ComplexCodec.BYTES,
+					count * ComplexCodec.BYTES);
+		}
+	}
+
+	public long size() {
+		return size;
+	}
+
+	public double getRealPart(long index) {
+		checkIndex(index);
+		return ComplexCodec.decodeRealPart(segment(index), offset(index));
+	}
+
+	public double getImaginaryPart(long index) {
+		checkIndex(index);
+		return ComplexCodec.decodeImaginaryPart(segment(index), offset(index));
+	}
+
+	public Complex get(long index) {
+		checkIndex(index);
+		return ComplexCodec.decode(segment(index), offset(index));
+	}
+
+	public void set(long index, double realPart, double imaginaryPart) {
+		checkWritable();
+		checkIndex(index);
+		ComplexCodec.encode(realPart, imaginaryPart, segment(index), offset(index));
+	}
+
+	public void set(long index, Complex complex) {
+		set(index, complex.getRealPart(), complex.getImaginaryPart());
+	}
+
+	// copies dest.size() values starting at index into dest
+	public ComplexVector read(long index, ComplexVector dest) {
+		checkRange(index, dest.size());
+		int done = 0;
+		while (done < dest.size()) {
+			long current = index + done;
+			int count = segmentRemaining(current, dest.size() - done);
+			ComplexCodec.decode(segment(current), offset(current), dest, done, count);
+			done += count;
+		}
+		return dest;
+	}
+
+	// copies all the values of source to the store, starting at index
+	public void write(long index, ComplexVector source) {
+		checkWritable();
+		checkRange(index, source.size());
+		int done = 0;
+		while (done < source.size()) {
+			long current = index + done;
+			int count = segmentRemaining(current, source.size() - done);
+			ComplexCodec.encode(source, done, count, segment(current), offset(current));
+			done += count;
+		}
+	}
+
+	// flushes the written values to the storage device
+	public void force() {
+		if (writable) {
+			for (MappedByteBuffer segment : segments) {
+				segment.force();
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		force();
+		channel.close();
+	}
+
+	private MappedByteBuffer segment(long index) {
+		return segments[(int) (index >>> VALUES_PER_SEGMENT_SHIFT)];
+	}
+
+	// how many of the next pending values fit in the segment of index
+	private static int segmentRemaining(long index, int pending) {
+		return (int) Math.min(pending, VALUES_PER_SEGMENT - (index & SEGMENT_MASK));
+	}
+
+	private static int offset(long index) {
+		return (int) (index & SEGMENT_MASK) * ComplexCodec.BYTES;
+	}
+
+	private void checkIndex(long index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size "
+					+ size);
+		}
+	}
+
+	private void checkRange(long index, int count) {
+		if (index < 0 || index + count > size) {
+			throw new IndexOutOfBoundsException("Range [" + index + ", " + (index + count)
+					+ ") out of bounds for size " + size);
+		}
+	}
+
+	private void checkWritable() {
+		if (!writable) {
+			throw new IllegalStateException("Store was opened read only");
+		}
+	}
+}
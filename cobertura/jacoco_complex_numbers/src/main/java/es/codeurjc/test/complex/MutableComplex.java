@@ -0,0 +1,97 @@
+package es.codeurjc.test.complex;
+
+// Mutable accumulator for reduction loops. Every operation updates this
+// object and returns it, so a loop such as Horner's evaluation
+//
+//   acc.timesInPlace(x).addInPlace(coefficient)
+//
+// does not allocate anything per iteration. Use toImmutable() to obtain
+// the final Complex value.
+public class MutableComplex {
+
+	private double realPart = 0;
+	private double imaginaryPart = 0;
+
+	public MutableComplex(double realPart, double imaginaryPart) {
+		this.realPart = realPart;
+		this.imaginaryPart = imaginaryPart;
+	}
+
+	public MutableComplex(Complex complex) {
+		this(complex.getRealPart(), complex.getImaginaryPart());
+	}
+
+	public MutableComplex() {
+	}
+
+	public double getRealPart() {
+		return this.realPart;
+	}
+
+	public double getImaginaryPart() {
+		return this.imaginaryPart;
+	}
+
+	public MutableComplex set(double realPart, double imaginaryPart) {
+		this.realPart = realPart;
+		this.imaginaryPart = imaginaryPart;
+		return this;
+	}
+
+	public MutableComplex set(Complex complex) {
+		return set(complex.getRealPart(), complex.getImaginaryPart());
+	}
+
+	// this = this + (realPart + imaginaryPart i)
+	public MutableComplex addInPlace(double realPart, double imaginaryPart) {
+		this.realPart += realPart;
+		this.imaginaryPart += imaginaryPart;
+		return this;
+	}
+
+	// this = this + complex
+	public MutableComplex addInPlace(Complex complex) {
+		return addInPlace(complex.getRealPart(), complex.getImaginaryPart());
+	}
+
+	// this = this * (realPart + imaginaryPart i)
+	public MutableComplex timesInPlace(double realPart, double imaginaryPart) {
+		double newRealPart = this.realPart * realPart - this.imaginaryPart * imaginaryPart;
+		double newImaginaryPart = this.realPart * imaginaryPart + this.imaginaryPart * realPart;
+		this.realPart = newRealPart;
+		this.imaginaryPart = newImaginaryPart;
+		return this;
+	}
+
+	// this = this * complex
+	public MutableComplex timesInPlace(Complex complex) {
+		return timesInPlace(complex.getRealPart(), complex.getImaginaryPart());
+	}
+
+	// this = this * alpha
+	public MutableComplex timesInPlace(double alpha) {
+		this.realPart *= alpha;
+		this.imaginaryPart *= alpha;
+		return this;
+	}
+
+	// this = this + (aRe + aIm i) * (bRe + bIm i)
+	public MutableComplex fma(double aRe, double aIm, double bRe, double bIm) {
+		this.realPart += aRe * bRe - aIm * bIm;
+		this.imaginaryPart += aRe * bIm + aIm * bRe;
+		return this;
+	}
+
+	// this = this + a * b
+	public MutableComplex fma(Complex a, Complex b) {
+		return fma(a.getRealPart(), a.getImaginaryPart(), b.getRealPart(), b.getImaginaryPart());
+	}
+
+	public Complex toImmutable() {
+		return new Complex(this.realPart, this.imaginaryPart);
+	}
+
+	public String toString() {
+		return this.realPart + " + " + this.imaginaryPart + "i ";
+	}
+}
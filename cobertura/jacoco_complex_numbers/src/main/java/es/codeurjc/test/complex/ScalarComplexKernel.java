@@ -0,0 +1,63 @@
+package es.codeurjc.test.complex;
+
+class ScalarComplexKernel implements ComplexKernel {
+
+	@Override
+	public void add(double[] re1, double[] im1, double[] re2, double[] im2, double[] destRe,
+			double[] destIm, int length) {
+		add(re1, im1, re2, im2, destRe, destIm, 0, length);
+	}
+
+	@Override
+	public void times(double[] re1, double[] im1, double[] re2, double[] im2, double[] destRe,
+			double[] destIm, int length) {
+		times(re1, im1, re2, im2, destRe, destIm, 0, length);
+	}
+
+	@Override
+	public void divides(double[] re1, double[] im1, double[] re2, double[] im2,
+			double[] destRe, double[] destIm, int length) {
+		divides(re1, im1, re2, im2, destRe, destIm, 0, length);
+	}
+
+	@Override
+	public void abs(double[] re, double[] im, double[] dest, int length) {
+		abs(re, im, dest, 0, length);
+	}
+
+	// the static versions are also used by VectorComplexKernel for the tail
+	// elements that do not fill a whole vector
+
+	static void add(double[] re1, double[] im1, double[] re2, double[] im2, double[] destRe,
+			double[] destIm, int from, int to) {
+		for (int i = from; i < to; i++) {
+			destRe[i] = re1[i] + re2[i];
+			destIm[i] = im1[i] + im2[i];
+		}
+	}
+
+	static void times(double[] re1, double[] im1, double[] re2, double[] im2, double[] destRe,
+			double[] destIm, int from, int to) {
+		for (int i = from; i < to; i++) {
+			double ar = re1[i];
+			double ai = im1[i];
+			double br = re2[i];
+			double bi = im2[i];
+			destRe[i] = ar * br - ai * bi;
+			destIm[i] = ar * bi + ai * br;
+		}
+	}
+
+	static void divides(double[] re1, double[] im1, double[] re2, double[] im2,
+			double[] destRe, double[] destIm, int from, int to) {
+		for (int i = from; i < to; i++) {
+			Complex.divide(re1[i], im1[i], re2[i], im2[i], destRe, i, destIm, i);
+		}
+	}
+
+	static void abs(double[] re, double[] im, double[] dest, int from, int to) {
+		for (int i = from; i < to; i++) {
+			dest[i] = Complex.magnitude(re[i], im[i]);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package es.codeurjc.test.complex;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// SIMD kernel on top of the incubating Vector API. This class must only be
+// loaded when the jdk.incubator.vector module is present, see ComplexArrays.
+class VectorComplexKernel implements ComplexKernel {
+
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	@Override
+	public void add(double[] re1, double[] im1, double[] re2, double[] im2, double[] destRe,
+			double[] destIm, int length) {
+		int i = 0;
+		for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+			DoubleVector.fromArray(SPECIES, re1, i).add(DoubleVector.fromArray(SPECIES, re2, i))
+					.intoArray(destRe, i);
+			DoubleVector.fromArray(SPECIES, im1, i).add(DoubleVector.fromArray(SPECIES, im2, i))
+					.intoArray(destIm, i);
+		}
+		ScalarComplexKernel.add(re1, im1, re2, im2, destRe, destIm, i, length);
+	}
+
+	@Override
+	public void times(double[] re1, double[] im1, double[] re2, double[] im2, double[] destRe,
+			double[] destIm, int length) {
+		int i = 0;
+		for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+			DoubleVector ar = DoubleVector.fromArray(SPECIES, re1, i);
+			DoubleVector ai = DoubleVector.fromArray(SPECIES, im1, i);
+			DoubleVector br = DoubleVector.fromArray(SPECIES, re2, i);
+			DoubleVector bi = DoubleVector.fromArray(SPECIES, im2, i);
+			ar.mul(br).sub(ai.mul(bi)).intoArray(destRe, i);
+			ar.mul(bi).add(ai.mul(br)).intoArray(destIm, i);
+		}
+		ScalarComplexKernel.times(re1, im1, re2, im2, destRe, destIm, i, length);
+	}
+
+	// the single division formula of Complex.divides is vectorized, chunks
+	// where it does not apply (divisor outside the normal range, zero or a
+	// non finite result) go through the scalar version
+	@Override
+	public void divides(double[] re1, double[] im1, double[] re2, double[] im2,
+			double[] destRe, double[] destIm, int length) {
+		int i = 0;
+		for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+			DoubleVector c = DoubleVector.fromArray(SPECIES, re2, i);
+			DoubleVector d = DoubleVector.fromArray(SPECIES, im2, i);
+			DoubleVector scale = c.mul(c).add(d.mul(d));
+			if (isNormal(scale)) {
+				DoubleVector inverse = DoubleVector.broadcast(SPECIES, 1.0).div(scale);
+				DoubleVector a = DoubleVector.fromArray(SPECIES, re1, i);
+				DoubleVector b = DoubleVector.fromArray(SPECIES, im1, i);
+				DoubleVector re = a.mul(c).add(b.mul(d)).mul(inverse);
+				DoubleVector im = b.mul(c).sub(a.mul(d)).mul(inverse);
+				if (re.test(VectorOperators.IS_FINITE).and(im.test(VectorOperators.IS_FINITE))
+						.allTrue()) {
+					re.intoArray(destRe, i);
+					im.intoArray(destIm, i);
+					continue;
+				}
+			}
+			ScalarComplexKernel.divides(re1, im1, re2, im2, destRe, destIm, i,
+					i + SPECIES.length());
+		}
+		ScalarComplexKernel.divides(re1, im1, re2, im2, destRe, destIm, i, length);
+	}
+
+	// the plain formula is vectorized, chunks with a sum of squares outside
+	// the normal range go through the scaled scalar version
+	@Override
+	public void abs(double[] re, double[] im, double[] dest, int length) {
+		int i = 0;
+		for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+			DoubleVector r = DoubleVector.fromArray(SPECIES, re, i);
+			DoubleVector m = DoubleVector.fromArray(SPECIES, im, i);
+			DoubleVector sum = r.mul(r).add(m.mul(m));
+			if (isNormal(sum)) {
+				sum.sqrt().intoArray(dest, i);
+			} else {
+				ScalarComplexKernel.abs(re, im, dest, i, i + SPECIES.length());
+			}
+		}
+		ScalarComplexKernel.abs(re, im, dest, i, length);
+	}
+
+	private static boolean isNormal(DoubleVector vector) {
+		return vector.compare(VectorOperators.GE, Double.MIN_NORMAL)
+				.and(vector.compare(VectorOperators.LE, Double.MAX_VALUE)).allTrue();
+	}
+}
@@ -0,0 +1,113 @@
+package es.codeurjc.test.complex;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+public class ComplexArraysTest {
+
+	// not a multiple of any vector length, so the scalar tail is also used
+	private static final int SIZE = 37;
+
+	public static Stream<ComplexKernel> kernels() {
+		return Stream.of(new ScalarComplexKernel(), new VectorComplexKernel());
+	}
+
+	@Test
+	public void givenVectorModuleIsAdded_thenSimdKernelIsUsed() {
+		assertTrue(ComplexArrays.isVectorized());
+	}
+
+	@ParameterizedTest
+	@MethodSource("kernels")
+	public void givenRandomValues_whenKernelOperations_thenSameAsComplexOperations(
+			ComplexKernel kernel) {
+
+		Random random = new Random(7);
+		double[] re1 = random.doubles(SIZE).toArray();
+		double[] im1 = random.doubles(SIZE).toArray();
+		double[] re2 = random.doubles(SIZE).toArray();
+		double[] im2 = random.doubles(SIZE).toArray();
+		double[] addRe = new double[SIZE];
+		double[] addIm = new double[SIZE];
+		double[] timesRe = new double[SIZE];
+		double[] timesIm = new double[SIZE];
+		double[] dividesRe = new double[SIZE];
+		double[] dividesIm = new double[SIZE];
+		double[] abs = new double[SIZE];
+
+		kernel.add(re1, im1, re2, im2, addRe, addIm, SIZE);
+		kernel.times(re1, im1, re2, im2, timesRe, timesIm, SIZE);
+		kernel.divides(re1, im1, re2, im2, dividesRe, dividesIm, SIZE);
+		kernel.abs(re1, im1, abs, SIZE);
+
+		for (int i = 0; i < SIZE; i++) {
+			Complex a = new Complex(re1[i], im1[i]);
+			Complex b = new Complex(re2[i], im2[i]);
+
+			assertComplexEquals(a.add(b), addRe[i], addIm[i]);
+			assertComplexEquals(a.times(b), timesRe[i], timesIm[i]);
+			assertComplexEquals(a.divides(b), dividesRe[i], dividesIm[i]);
+			assertEquals(a.abs(), abs[i], 1e-12);
+		}
+	}
+
+	@ParameterizedTest
+	@MethodSource("kernels")
+	public void givenLargeValues_whenDividesAndAbs_thenNoOverflowHappens(ComplexKernel kernel) {
+
+		double[] re = new double[SIZE];
+		double[] im = new double[SIZE];
+		Arrays.fill(re, 3e300);
+		Arrays.fill(im, 4e300);
+		double[] quotientRe = new double[SIZE];
+		double[] quotientIm = new double[SIZE];
+		double[] abs = new double[SIZE];
+
+		kernel.divides(re, im, im, re, quotientRe, quotientIm, SIZE);
+		kernel.abs(re, im, abs, SIZE);
+
+		for (int i = 0; i < SIZE; i++) {
+			assertEquals(0.96, quotientRe[i], 1e-12);
+			assertEquals(0.28, quotientIm[i], 1e-12);
+			assertEquals(5e300, abs[i], 1e286);
+		}
+	}
+
+	@ParameterizedTest
+	@MethodSource("kernels")
+	public void givenZeroDivisor_whenDivides_thenExceptionIsThrown(ComplexKernel kernel) {
+
+		double[] ones = new double[SIZE];
+		Arrays.fill(ones, 1);
+		double[] re2 = ones.clone();
+		double[] im2 = new double[SIZE];
+		re2[SIZE / 2] = 0;
+
+		ArithmeticException actual = assertThrows(ArithmeticException.class, () -> {
+			kernel.divides(ones, ones, re2, im2, new double[SIZE], new double[SIZE], SIZE);
+		});
+
+		assertEquals("division by zero", actual.getMessage());
+	}
+
+	@Test
+	public void givenArraysOfDifferentLength_whenTimes_thenExceptionIsThrown() {
+
+		double[] a = new double[3];
+		double[] b = new double[4];
+
+		assertThrows(IllegalArgumentException.class, () -> ComplexArrays.times(a, a, b, b, a, a));
+	}
+
+	private static void assertComplexEquals(Complex expected, double re, double im) {
+		assertEquals(expected.getRealPart(), re, 1e-12);
+		assertEquals(expected.getImaginaryPart(), im, 1e-12);
+	}
+}
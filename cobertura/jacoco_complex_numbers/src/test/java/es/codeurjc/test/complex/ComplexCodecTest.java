@@ -0,0 +1,48 @@
+package es.codeurjc.test.complex;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.jupiter.api.Test;
+
+public class ComplexCodecTest {
+
+	@Test
+	public void givenComplex_whenEncoded_thenLittleEndianRealAndImaginaryPartsAreWritten() {
+
+		byte[] bytes = ComplexCodec.encode(new Complex(1.5, -2.25));
+
+		ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		assertEquals(ComplexCodec.BYTES, bytes.length);
+		assertEquals(1.5, buffer.getDouble(0));
+		assertEquals(-2.25, buffer.getDouble(8));
+	}
+
+	@Test
+	public void givenBigEndianBuffer_whenEncodedAndDecoded_thenSameValueAndOrderAreKept() {
+
+		ByteBuffer buffer = ByteBuffer.allocate(3 * ComplexCodec.BYTES);
+
+		ComplexCodec.encode(new Complex(-0.0, Double.NaN), buffer, ComplexCodec.BYTES);
+
+		assertEquals(new Complex(-0.0, Double.NaN), ComplexCodec.decode(buffer, ComplexCodec.BYTES));
+		assertEquals(ByteOrder.BIG_ENDIAN, buffer.order());
+		assertEquals(0, buffer.position());
+	}
+
+	@Test
+	public void givenVector_whenEncodedAndDecoded_thenSameValuesAreObtained() {
+
+		ComplexVector vector = ComplexVector.of(new Complex(1, 2), new Complex(3, 4),
+				new Complex(5, 6));
+		ByteBuffer buffer = ByteBuffer.allocateDirect(vector.size() * ComplexCodec.BYTES);
+
+		ComplexCodec.encode(vector, 0, vector.size(), buffer, 0);
+		ComplexVector result = new ComplexVector(vector.size());
+		ComplexCodec.decode(buffer, 0, result, 0, vector.size());
+
+		assertArrayEquals(vector.toArray(), result.toArray());
+	}
+}
@@ -0,0 +1,69 @@
+package es.codeurjc.test.complex;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class ComplexDivisionTest {
+
+	@Test
+	public void givenTwoComplex_whenDivides_thenQuotientIsObtained() {
+
+		// (1 + 2i) / (3 - 4i) = -0.2 + 0.4i
+		Complex result = new Complex(1, 2).divides(new Complex(3, -4));
+
+		assertEquals(-0.2, result.getRealPart(), 1e-15);
+		assertEquals(0.4, result.getImaginaryPart(), 1e-15);
+	}
+
+	@Test
+	public void givenComplex_whenDividedByItsReciprocal_thenSquareIsObtained() {
+
+		Complex a = new Complex(0.5, -3);
+
+		Complex result = a.divides(a.reciprocal());
+		Complex square = a.times(a);
+
+		assertEquals(square.getRealPart(), result.getRealPart(), 1e-12);
+		assertEquals(square.getImaginaryPart(), result.getImaginaryPart(), 1e-12);
+	}
+
+	@Test
+	public void givenLargeComplex_whenDividedByLargeComplex_thenNoOverflowHappens() {
+
+		Complex a = new Complex(1e300, 1e300);
+		Complex b = new Complex(2e300, 2e300);
+
+		Complex result = a.divides(b);
+
+		assertEquals(0.5, result.getRealPart(), 1e-15);
+		assertEquals(0.0, result.getImaginaryPart(), 1e-15);
+	}
+
+	@Test
+	public void givenLargeComplex_whenDividedByModerateComplex_thenNoOverflowHappens() {
+
+		Complex result = new Complex(1e300, 0).divides(new Complex(1e10, 1e10));
+
+		assertEquals(5e289, result.getRealPart(), 1e275);
+		assertEquals(-5e289, result.getImaginaryPart(), 1e275);
+	}
+
+	@Test
+	public void givenLargeComplex_whenAbs_thenNoOverflowHappens() {
+
+		assertEquals(5e300, new Complex(3e300, 4e300).abs(), 1e286);
+		assertEquals(5e-300, new Complex(3e-300, -4e-300).abs(), 1e-314);
+		assertEquals(Double.POSITIVE_INFINITY, new Complex(Double.NEGATIVE_INFINITY, 1).abs());
+	}
+
+	@Test
+	public void givenZero_whenDividing_thenExceptionIsThrown() {
+
+		ArithmeticException actual = assertThrows(ArithmeticException.class, () -> {
+			new Complex(1, 1).divides(new Complex(0, 0));
+		});
+
+		assertEquals("division by zero", actual.getMessage());
+	}
+}
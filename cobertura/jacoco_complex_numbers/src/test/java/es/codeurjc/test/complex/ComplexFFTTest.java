@@ -0,0 +1,111 @@
+package es.codeurjc.test.complex;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class ComplexFFTTest {
+
+	@ParameterizedTest(name = "size {0}")
+	@ValueSource(ints = { 1, 2, 8, 64, 12, 100, 7 })
+	public void givenRandomValues_whenTransform_thenSameAsNaiveDft(int size) {
+
+		Complex[] values = randomValues(size);
+
+		Complex[] result = ComplexFFT.forSize(size).transform(values);
+
+		Complex[] expected = naiveDft(values);
+		for (int k = 0; k < size; k++) {
+			assertComplexEquals(expected[k], result[k], 1e-9);
+		}
+	}
+
+	@ParameterizedTest(name = "size {0}")
+	@ValueSource(ints = { 16, 30, 1 << 17 })
+	public void givenRandomValues_whenTransformAndInverse_thenOriginalValuesAreObtained(int size) {
+
+		Complex[] values = randomValues(size);
+		ComplexVector vector = ComplexVector.of(values);
+		ComplexFFT fft = ComplexFFT.forSize(size);
+
+		fft.inverse(fft.transform(vector));
+
+		for (int i = 0; i < size; i++) {
+			assertComplexEquals(values[i], vector.get(i), 1e-9);
+		}
+	}
+
+	@Test
+	public void givenSizeAboveParallelThreshold_whenTransform_thenBinsMatchDirectSum() {
+
+		int size = 4 * ComplexFFT.PARALLEL_THRESHOLD;
+		Complex[] values = randomValues(size);
+
+		Complex[] result = ComplexFFT.forSize(size).transform(values);
+
+		for (int k : new int[] { 0, 1, 12345, size - 1 }) {
+			assertComplexEquals(dftBin(values, k), result[k], 1e-7);
+		}
+	}
+
+	@Test
+	public void givenSameSize_whenForSize_thenCachedInstanceIsReturned() {
+
+		assertSame(ComplexFFT.forSize(1024), ComplexFFT.forSize(1024));
+		assertSame(ComplexFFT.forSize(1000), ComplexFFT.forSize(1000));
+	}
+
+	@Test
+	public void givenManyNonPowerOfTwoSizes_whenForSize_thenLeastRecentlyUsedIsEvicted() {
+
+		ComplexFFT first = ComplexFFT.forSize(3);
+		for (int i = 0; i < ComplexFFT.BLUESTEIN_CACHE_SIZE; i++) {
+			ComplexFFT.forSize(5 + 2 * i);
+		}
+
+		assertNotSame(first, ComplexFFT.forSize(3));
+	}
+
+	@Test
+	public void givenWrongArrayLength_whenTransform_thenExceptionIsThrown() {
+
+		assertThrows(IllegalArgumentException.class,
+				() -> ComplexFFT.forSize(8).transform(new double[4], new double[4]));
+	}
+
+	private static Complex[] randomValues(int size) {
+		Random random = new Random(size);
+		Complex[] values = new Complex[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = new Complex(random.nextGaussian(), random.nextGaussian());
+		}
+		return values;
+	}
+
+	private static Complex[] naiveDft(Complex[] values) {
+		Complex[] result = new Complex[values.length];
+		for (int k = 0; k < values.length; k++) {
+			result[k] = dftBin(values, k);
+		}
+		return result;
+	}
+
+	private static Complex dftBin(Complex[] values, int k) {
+		int n = values.length;
+		Complex sum = new Complex(0, 0);
+		for (int j = 0; j < n; j++) {
+			double angle = -2 * Math.PI * ((long) j * k % n) / n;
+			sum = sum.add(values[j].times(new Complex(Math.cos(angle), Math.sin(angle))));
+		}
+		return sum;
+	}
+
+	private static void assertComplexEquals(Complex expected, Complex actual, double delta) {
+		assertEquals(expected.getRealPart(), actual.getRealPart(), delta);
+		assertEquals(expected.getImaginaryPart(), actual.getImaginaryPart(), delta);
+	}
+}
@@ -0,0 +1,78 @@
+package es.codeurjc.test.complex;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class ComplexFormatTest {
+
+	@Test
+	public void givenRandomComplex_whenToStringIsParsed_thenSameComplexIsObtained() {
+
+		Random random = new Random(11);
+		for (int i = 0; i < 10_000; i++) {
+			double re = random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+			double im = -random.nextDouble() * Math.pow(10, random.nextInt(600) - 300);
+			Complex complex = new Complex(re, im);
+
+			assertEquals(complex, Complex.parse(complex.toString()));
+		}
+	}
+
+	@Test
+	public void givenSpecialValues_whenToStringIsParsed_thenSameComplexIsObtained() {
+
+		Complex[] values = { new Complex(Double.NaN, Double.NEGATIVE_INFINITY),
+				new Complex(-0.0, Double.POSITIVE_INFINITY),
+				new Complex(Double.MIN_VALUE, Double.MAX_VALUE) };
+
+		for (Complex complex : values) {
+			assertEquals(complex, Complex.parse(complex.toString()));
+		}
+	}
+
+	@Test
+	public void givenCsvFormsWithMinusSeparator_whenParsed_thenValuesAreObtained() {
+
+		assertEquals(new Complex(3, -2.5), ComplexFormat.parse("3.0 + -2.5i"));
+		assertEquals(new Complex(3, -2.5), ComplexFormat.parse("3 - 2.5i"));
+		assertEquals(new Complex(0.001, 12e10), ComplexFormat.parse("  1e-3+1.2E11i  "));
+	}
+
+	@Test
+	public void givenAsciiBytes_whenParsedFromByteBuffer_thenValueIsObtainedWithoutMovingPosition() {
+
+		ByteBuffer buffer = ByteBuffer.wrap("x;1.5 + 2.0i;y".getBytes(StandardCharsets.US_ASCII));
+
+		assertEquals(new Complex(1.5, 2), ComplexFormat.parse(buffer, 2, 12));
+		assertEquals(0, buffer.position());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "", "1.0", "1.0 + 2.0", "1.0 * 2.0i", "1.0 + 2.0i x", "abc + 1i",
+			"1.0e + 2i", "1.0 + .i" })
+	public void givenMalformedText_whenParsed_thenExceptionIsThrown(String text) {
+
+		assertThrows(NumberFormatException.class, () -> ComplexFormat.parse(text));
+	}
+
+	@Test
+	public void givenComplex_whenFormatted_thenSameTextAsToStringIsAppended() throws IOException {
+
+		Complex complex = new Complex(1.25, -3e-7);
+
+		StringBuilder builder = ComplexFormat.format(complex, new StringBuilder("> "));
+		StringWriter writer = ComplexFormat.format(complex, new StringWriter());
+
+		assertEquals("> " + complex, builder.toString());
+		assertEquals(complex.toString(), writer.toString());
+	}
+}
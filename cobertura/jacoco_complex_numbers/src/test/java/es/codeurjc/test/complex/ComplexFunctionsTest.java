@@ -0,0 +1,123 @@
+package es.codeurjc.test.complex;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class ComplexFunctionsTest {
+
+	private static final Complex[] VALUES = { new Complex(1, 2), new Complex(-3, 0.5),
+			new Complex(0, -4), new Complex(-2, -0.0), new Complex(0.25, 0) };
+
+	@Test
+	public void givenPiI_whenExp_thenMinusOneIsObtained() {
+
+		assertComplexEquals(new Complex(-1, 0), new Complex(0, Math.PI).exp(), 1e-15);
+	}
+
+	@Test
+	public void givenValues_whenLogAndThenExp_thenOriginalValuesAreObtained() {
+
+		for (Complex value : VALUES) {
+			assertComplexEquals(value, value.log().exp(), 1e-12);
+		}
+	}
+
+	@Test
+	public void givenValues_whenSqrtIsSquared_thenOriginalValuesAreObtained() {
+
+		for (Complex value : VALUES) {
+			Complex root = value.sqrt();
+			assertTrue(root.getRealPart() >= 0);
+			assertComplexEquals(value, root.times(root), 1e-12);
+		}
+		assertEquals(new Complex(0, 2), new Complex(-4, 0).sqrt());
+		assertEquals(new Complex(0, -2), new Complex(-4, -0.0).sqrt());
+	}
+
+	@Test
+	public void givenIntegerExponents_whenPow_thenSameAsRepeatedMultiplication() {
+
+		Complex value = new Complex(0.75, -1.25);
+		Complex expected = Complex.ONE;
+		for (int n = 0; n <= 20; n++) {
+			assertComplexEquals(expected, value.pow(n), 1e-9);
+			assertComplexEquals(expected.reciprocal(), value.pow(-n), 1e-9);
+			expected = expected.times(value);
+		}
+	}
+
+	@Test
+	public void givenComplexExponent_whenPow_thenPrincipalValueIsObtained() {
+
+		// i^i = e^(-pi/2)
+		assertComplexEquals(new Complex(Math.exp(-Math.PI / 2), 0), Complex.I.pow(Complex.I),
+				1e-15);
+		assertEquals(Complex.ZERO, Complex.ZERO.pow(new Complex(2, 1)));
+		assertThrows(ArithmeticException.class, () -> Complex.ZERO.pow(new Complex(-1, 0)));
+	}
+
+	@Test
+	public void givenValues_whenSinAndCos_thenPythagoreanIdentityHolds() {
+
+		for (Complex value : VALUES) {
+			Complex sin = value.sin();
+			Complex cos = value.cos();
+			assertComplexEquals(Complex.ONE, sin.times(sin).add(cos.times(cos)), 1e-9);
+		}
+	}
+
+	@Test
+	public void givenVector_whenBulkFunctions_thenSameAsScalarFunctions() {
+
+		ComplexVector vector = ComplexVector.of(VALUES);
+		int size = VALUES.length;
+
+		ComplexVector exp = vector.exp(new ComplexVector(size));
+		ComplexVector log = vector.log(new ComplexVector(size));
+		ComplexVector sqrt = vector.sqrt(new ComplexVector(size));
+		ComplexVector pow = vector.pow(-7, new ComplexVector(size));
+		ComplexVector sin = new ComplexVector(size);
+		ComplexVector cos = new ComplexVector(size);
+		vector.sinCos(sin, cos);
+
+		for (int i = 0; i < size; i++) {
+			assertComplexEquals(VALUES[i].exp(), exp.get(i), 1e-12);
+			assertComplexEquals(VALUES[i].log(), log.get(i), 1e-12);
+			assertComplexEquals(VALUES[i].sqrt(), sqrt.get(i), 1e-12);
+			assertComplexEquals(VALUES[i].pow(-7), pow.get(i), 1e-12);
+			assertComplexEquals(VALUES[i].sin(), sin.get(i), 1e-12);
+			assertComplexEquals(VALUES[i].cos(), cos.get(i), 1e-12);
+		}
+	}
+
+	@Test
+	public void givenVectorWithZero_whenNegativePower_thenDestinationIsUntouched() {
+
+		ComplexVector vector = ComplexVector.of(new Complex(2, 1), Complex.ZERO);
+		ComplexVector dest = ComplexVector.of(new Complex(5, 5), new Complex(6, 6));
+
+		assertThrows(ArithmeticException.class, () -> vector.pow(-2, dest));
+
+		assertEquals(new Complex(5, 5), dest.get(0));
+		assertEquals(new Complex(6, 6), dest.get(1));
+	}
+
+	@Test
+	public void givenLargeValues_whenNegativePowerUnderflows_thenResultIsZero() {
+
+		Complex large = new Complex(1e200, 1e200);
+		ComplexVector vector = ComplexVector.of(large, new Complex(2, 1));
+
+		ComplexVector pow = vector.pow(-3, new ComplexVector(2));
+
+		assertComplexEquals(Complex.ZERO, large.pow(-3), 0);
+		assertComplexEquals(Complex.ZERO, pow.get(0), 0);
+		assertComplexEquals(new Complex(2, 1).pow(-3), pow.get(1), 1e-15);
+	}
+
+	private static void assertComplexEquals(Complex expected, Complex actual, double delta) {
+		assertEquals(expected.getRealPart(), actual.getRealPart(), delta);
+		assertEquals(expected.getImaginaryPart(), actual.getImaginaryPart(), delta);
+	}
+}
@@ -0,0 +1,135 @@
+package es.codeurjc.test.complex;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class ComplexMatrixTest {
+
+	private final Random random = new Random(5);
+
+	@Test
+	public void givenSmallMatrices_whenTimes_thenSameAsElementByElementProducts() {
+
+		Complex[][] a = randomValues(3, 4);
+		Complex[][] b = randomValues(4, 2);
+
+		ComplexMatrix result = ComplexMatrix.of(a).times(ComplexMatrix.of(b));
+
+		assertMatrixEquals(naiveTimes(a, b), result, 1e-12);
+	}
+
+	@Test
+	public void givenLargeMatrices_whenTimesInParallel_thenSameAsElementByElementProducts() {
+
+		// several blocks in every dimension and above the parallel threshold
+		Complex[][] a = randomValues(150, 70);
+		Complex[][] b = randomValues(70, 130);
+
+		ComplexMatrix result = ComplexMatrix.of(a).times(ComplexMatrix.of(b));
+
+		assertMatrixEquals(naiveTimes(a, b), result, 1e-10);
+	}
+
+	@Test
+	public void givenMatrix_whenConjugateTranspose_thenRowsBecomeConjugatedColumns() {
+
+		Complex[][] a = randomValues(70, 3);
+
+		ComplexMatrix transpose = ComplexMatrix.of(a).transpose();
+		ComplexMatrix conjugateTranspose = ComplexMatrix.of(a).conjugateTranspose();
+
+		assertEquals(3, transpose.rows());
+		assertEquals(70, transpose.columns());
+		for (int i = 0; i < 70; i++) {
+			for (int j = 0; j < 3; j++) {
+				assertEquals(a[i][j], transpose.get(j, i));
+				assertEquals(a[i][j].conjugate(), conjugateTranspose.get(j, i));
+			}
+		}
+	}
+
+	@Test
+	public void givenRegularMatrix_whenSolve_thenProductGivesRightHandSide() {
+
+		Complex[][] a = randomValues(40, 40);
+		Complex[][] b = randomValues(40, 3);
+		ComplexMatrix matrix = ComplexMatrix.of(a);
+
+		ComplexMatrix x = matrix.solve(ComplexMatrix.of(b));
+
+		assertMatrixEquals(b, matrix.times(x), 1e-9);
+	}
+
+	@Test
+	public void givenSystemNeedingPivoting_whenSolveVector_thenSolutionIsObtained() {
+
+		// zero in the first pivot position
+		ComplexMatrix matrix = ComplexMatrix.of(new Complex[][] {
+				{ Complex.ZERO, Complex.ONE },
+				{ Complex.I, Complex.ONE } });
+
+		Complex[] x = matrix.solve(new Complex[] { new Complex(2, 0), new Complex(2, 1) });
+
+		assertEquals(1, x[0].getRealPart(), 1e-15);
+		assertEquals(0, x[0].getImaginaryPart(), 1e-15);
+		assertEquals(2, x[1].getRealPart(), 1e-15);
+		assertEquals(0, x[1].getImaginaryPart(), 1e-15);
+	}
+
+	@Test
+	public void givenSingularMatrix_whenSolve_thenExceptionIsThrown() {
+
+		ComplexMatrix matrix = ComplexMatrix.of(new Complex[][] {
+				{ Complex.ONE, Complex.I },
+				{ Complex.I, new Complex(-1, 0) } });
+
+		assertThrows(ArithmeticException.class, () -> matrix.solve(ComplexMatrix.identity(2)));
+	}
+
+	@Test
+	public void givenSizeOverflowingTheStorage_whenCreated_thenExceptionIsThrown() {
+
+		assertThrows(IllegalArgumentException.class, () -> new ComplexMatrix(50_000, 50_000));
+		assertThrows(IllegalArgumentException.class, () -> new ComplexMatrix(2, Integer.MAX_VALUE / 2 + 1));
+	}
+
+	private Complex[][] randomValues(int rows, int columns) {
+		Complex[][] values = new Complex[rows][columns];
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < columns; j++) {
+				values[i][j] = new Complex(random.nextGaussian(), random.nextGaussian());
+			}
+		}
+		return values;
+	}
+
+	private static Complex[][] naiveTimes(Complex[][] a, Complex[][] b) {
+		Complex[][] result = new Complex[a.length][b[0].length];
+		for (int i = 0; i < a.length; i++) {
+			for (int j = 0; j < b[0].length; j++) {
+				Complex sum = Complex.ZERO;
+				for (int k = 0; k < b.length; k++) {
+					sum = sum.add(a[i][k].times(b[k][j]));
+				}
+				result[i][j] = sum;
+			}
+		}
+		return result;
+	}
+
+	private static void assertMatrixEquals(Complex[][] expected, ComplexMatrix actual,
+			double delta) {
+		assertEquals(expected.length, actual.rows());
+		assertEquals(expected[0].length, actual.columns());
+		for (int i = 0; i < expected.length; i++) {
+			for (int j = 0; j < expected[i].length; j++) {
+				assertEquals(expected[i][j].getRealPart(), actual.get(i, j).getRealPart(), delta);
+				assertEquals(expected[i][j].getImaginaryPart(),
+						actual.get(i, j).getImaginaryPart(), delta);
+			}
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package es.codeurjc.test.complex;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class ComplexPolynomialTest {
+
+	@Test
+	public void givenPolynomial_whenEvaluate_thenSameAsChainedComplexOperations() {
+
+		// 2 + (1 - i) x + 3i x^2
+		ComplexPolynomial polynomial = new ComplexPolynomial(new Complex(2, 0),
+				new Complex(1, -1), new Complex(0, 3));
+		Complex x = new Complex(0.5, 2);
+
+		Complex expected = new Complex(2, 0).add(new Complex(1, -1).times(x))
+				.add(new Complex(0, 3).times(x).times(x));
+
+		assertComplexEquals(expected, polynomial.evaluate(x), 1e-12);
+	}
+
+	@Test
+	public void givenManyPoints_whenBatchEvaluate_thenSameAsPointEvaluation() {
+
+		Random random = new Random(1);
+		ComplexPolynomial polynomial = new ComplexPolynomial(randomValues(random, 9));
+		Complex[] points = randomValues(random, 3 * ComplexPolynomial.BATCH_CHUNK + 17);
+
+		ComplexVector result = polynomial.evaluate(ComplexVector.of(points),
+				new ComplexVector(points.length));
+
+		for (int i = 0; i < points.length; i++) {
+			assertComplexEquals(polynomial.evaluate(points[i]), result.get(i), 1e-12);
+		}
+	}
+
+	@Test
+	public void givenTrailingZeroCoefficients_thenDegreeIgnoresThem() {
+
+		ComplexPolynomial polynomial = new ComplexPolynomial(Complex.ONE, Complex.I,
+				Complex.ZERO, Complex.ZERO);
+
+		assertEquals(1, polynomial.degree());
+		assertEquals(Complex.I, polynomial.derivative().getCoefficient(0));
+	}
+
+	@Test
+	public void givenPolynomialFromKnownRoots_whenRoots_thenThoseRootsAreFound() {
+
+		Complex[] roots = { new Complex(1, 0), new Complex(-2, 0.5), new Complex(0, 3),
+				new Complex(0.25, -0.75), new Complex(4, 4) };
+
+		Complex[] found = fromRoots(roots).roots();
+
+		assertRootsMatch(roots, found, 1e-9);
+	}
+
+	@Test
+	public void givenHighDegreePolynomial_whenRootsInParallel_thenRootsOfUnityAreFound() {
+
+		// x^n - 1
+		int n = 2 * ComplexPolynomial.PARALLEL_DEGREE;
+		Complex[] coefficients = new Complex[n + 1];
+		for (int i = 0; i <= n; i++) {
+			coefficients[i] = Complex.ZERO;
+		}
+		coefficients[0] = new Complex(-1, 0);
+		coefficients[n] = Complex.ONE;
+
+		Complex[] expected = new Complex[n];
+		for (int k = 0; k < n; k++) {
+			expected[k] = new Complex(Math.cos(2 * Math.PI * k / n), Math.sin(2 * Math.PI * k / n));
+		}
+
+		assertRootsMatch(expected, new ComplexPolynomial(coefficients).roots(), 1e-9);
+	}
+
+	@Test
+	public void givenRepeatedRoot_whenRoots_thenItIsFoundWithItsMultiplicity() {
+
+		Complex[] roots = { new Complex(1, 1), new Complex(1, 1), new Complex(-3, 0) };
+
+		assertRootsMatch(roots, fromRoots(roots).roots(), 1e-6);
+	}
+
+	@Test
+	public void givenNaNCoefficient_whenRoots_thenNonConvergenceIsReported() {
+
+		ComplexPolynomial polynomial = new ComplexPolynomial(new Complex(Double.NaN, 0),
+				Complex.ONE, Complex.ONE);
+
+		assertThrows(ArithmeticException.class, polynomial::roots);
+	}
+
+	private static ComplexPolynomial fromRoots(Complex[] roots) {
+		Complex[] coefficients = { Complex.ONE };
+		for (Complex root : roots) {
+			Complex[] next = new Complex[coefficients.length + 1];
+			next[0] = Complex.ZERO;
+			for (int i = 0; i < coefficients.length; i++) {
+				next[i + 1] = coefficients[i];
+			}
+			for (int i = 0; i < coefficients.length; i++) {
+				next[i] = next[i].minus(root.times(coefficients[i]));
+			}
+			coefficients = next;
+		}
+		return new ComplexPolynomial(coefficients);
+	}
+
+	private static void assertRootsMatch(Complex[] expected, Complex[] found, double delta) {
+		assertEquals(expected.length, found.length);
+		boolean[] used = new boolean[found.length];
+		for (Complex root : expected) {
+			int nearest = -1;
+			for (int i = 0; i < found.length; i++) {
+				if (!used[i] && (nearest < 0
+						|| root.minus(found[i]).abs() < root.minus(found[nearest]).abs())) {
+					nearest = i;
+				}
+			}
+			used[nearest] = true;
+			assertComplexEquals(root, found[nearest], delta);
+		}
+	}
+
+	private static Complex[] randomValues(Random random, int size) {
+		Complex[] values = new Complex[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = new Complex(random.nextGaussian(), random.nextGaussian());
+		}
+		return values;
+	}
+
+	private static void assertComplexEquals(Complex expected, Complex actual, double delta) {
+		assertEquals(expected.getRealPart(), actual.getRealPart(), delta);
+		assertEquals(expected.getImaginaryPart(), actual.getImaginaryPart(), delta);
+	}
+}
@@ -0,0 +1,103 @@
+package es.codeurjc.test.complex;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ComplexStreamsTest {
+
+	// several chunks, so the work is really split
+	private static final int SIZE = 5 * ComplexStreams.CHUNK_SIZE + 123;
+
+	private Complex[] values;
+	private Complex[] others;
+
+	@BeforeEach
+	public void setUp() {
+		Random random = new Random(3);
+		values = new Complex[SIZE];
+		others = new Complex[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			values[i] = new Complex(random.nextDouble() - 0.5, random.nextDouble() - 0.5);
+			others[i] = new Complex(random.nextDouble() - 0.5, random.nextDouble() - 0.5);
+		}
+	}
+
+	@Test
+	public void givenLargeArray_whenSum_thenSameAsSequentialAdd() {
+
+		Complex expected = new Complex(0, 0);
+		for (Complex value : values) {
+			expected = expected.add(value);
+		}
+
+		assertComplexEquals(expected, ComplexStreams.sum(values));
+		assertComplexEquals(expected, ComplexStreams.sum(ComplexVector.of(values)));
+	}
+
+	@Test
+	public void givenLargeArray_whenProduct_thenSameAsSequentialTimes() {
+
+		Complex[] unitValues = new Complex[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			double angle = values[i].phase();
+			unitValues[i] = new Complex(Math.cos(angle), Math.sin(angle));
+		}
+		Complex expected = new Complex(1, 0);
+		for (Complex value : unitValues) {
+			expected = expected.times(value);
+		}
+
+		assertComplexEquals(expected, ComplexStreams.product(unitValues));
+		assertComplexEquals(expected, ComplexStreams.product(ComplexVector.of(unitValues)));
+	}
+
+	@Test
+	public void givenTwoLargeArrays_whenDot_thenSumOfProductsIsObtained() {
+
+		Complex expected = new Complex(0, 0);
+		for (int i = 0; i < SIZE; i++) {
+			expected = expected.add(values[i].times(others[i]));
+		}
+
+		assertComplexEquals(expected, ComplexStreams.dot(values, others));
+		assertComplexEquals(expected,
+				ComplexStreams.dot(ComplexVector.of(values), ComplexVector.of(others)));
+	}
+
+	@Test
+	public void givenLargeArray_whenMaxByAbs_thenLargestValueIsObtained() {
+
+		values[SIZE - 10] = new Complex(3, 4);
+
+		assertSame(values[SIZE - 10], ComplexStreams.maxByAbs(values));
+		assertEquals(SIZE - 10, ComplexStreams.indexOfMaxAbs(ComplexVector.of(values)));
+		assertNull(ComplexStreams.maxByAbs(new Complex[0]));
+	}
+
+	@Test
+	public void givenLargeArray_whenMap_thenOperatorIsAppliedToEveryElement() {
+
+		Complex[] dest = ComplexStreams.map(values, Complex::conjugate, new Complex[SIZE]);
+
+		for (int i = 0; i < SIZE; i++) {
+			assertEquals(values[i].conjugate(), dest[i]);
+		}
+	}
+
+	@Test
+	public void givenVector_whenParallelStream_thenAllValuesAreVisitedInOrder() {
+
+		ComplexVector vector = ComplexVector.of(values);
+
+		assertArrayEquals(values, ComplexStreams.stream(vector, true).toArray(Complex[]::new));
+	}
+
+	private static void assertComplexEquals(Complex expected, Complex actual) {
+		assertEquals(expected.getRealPart(), actual.getRealPart(), 1e-9);
+		assertEquals(expected.getImaginaryPart(), actual.getImaginaryPart(), 1e-9);
+	}
+}
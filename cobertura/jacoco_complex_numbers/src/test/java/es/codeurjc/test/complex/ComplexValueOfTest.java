@@ -0,0 +1,48 @@
+package es.codeurjc.test.complex;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class ComplexValueOfTest {
+
+	@Test
+	public void givenSmallIntegerParts_whenValueOf_thenSameInstanceIsReturned() {
+
+		assertSame(Complex.valueOf(3, -2), Complex.valueOf(3, -2));
+		assertSame(Complex.ZERO, Complex.valueOf(0, 0));
+		assertSame(Complex.ONE, Complex.valueOf(1, 0));
+		assertSame(Complex.I, Complex.valueOf(0, 1));
+	}
+
+	@Test
+	public void givenNonCachedParts_whenValueOf_thenEqualNewInstanceIsReturned() {
+
+		Complex half = Complex.valueOf(0.5, 0);
+		Complex big = Complex.valueOf(Complex.CACHE_LIMIT + 1, 0);
+
+		assertEquals(new Complex(0.5, 0), half);
+		assertNotSame(half, Complex.valueOf(0.5, 0));
+		assertEquals(new Complex(Complex.CACHE_LIMIT + 1, 0), big);
+		assertNotSame(big, Complex.valueOf(Complex.CACHE_LIMIT + 1, 0));
+	}
+
+	@Test
+	public void givenNegativeZero_whenValueOf_thenItIsNotConfusedWithZero() {
+
+		Complex negativeZero = Complex.valueOf(-0.0, 0);
+
+		assertNotEquals(Complex.ZERO, negativeZero);
+		assertEquals(new Complex(-0.0, 0), negativeZero);
+		assertEquals(new Complex(-0.0, 0).hashCode(), negativeZero.hashCode());
+	}
+
+	@Test
+	public void givenConstants_thenTheyHaveTheExpectedParts() {
+
+		assertEquals(new Complex(0, 0), Complex.ZERO);
+		assertEquals(new Complex(1, 0), Complex.ONE);
+		assertEquals(new Complex(0, 1), Complex.I);
+		assertEquals(new Complex(-1, 0), Complex.I.times(Complex.I));
+	}
+}
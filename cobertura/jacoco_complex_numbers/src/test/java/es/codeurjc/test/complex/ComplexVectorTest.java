@@ -0,0 +1,108 @@
+package es.codeurjc.test.complex;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class ComplexVectorTest {
+
+	private static final Complex[] VALUES = { new Complex(1, 2), new Complex(-3, 0.5),
+			new Complex(0, -4), new Complex(2.5, 2.5) };
+
+	private static final Complex[] OTHERS = { new Complex(0.5, -1), new Complex(2, 2),
+			new Complex(-1, 0), new Complex(3, -0.25) };
+
+	@Test
+	public void givenComplexArray_whenConvertedToVectorAndBack_thenSameValuesAreObtained() {
+
+		ComplexVector vector = ComplexVector.of(VALUES);
+
+		assertEquals(VALUES.length, vector.size());
+		assertArrayEquals(VALUES, vector.toArray());
+	}
+
+	@Test
+	public void givenTwoVectors_whenAdded_thenEachElementIsTheScalarSum() {
+
+		ComplexVector vector = ComplexVector.of(VALUES);
+
+		vector.add(ComplexVector.of(OTHERS));
+
+		for (int i = 0; i < VALUES.length; i++) {
+			assertEquals(VALUES[i].add(OTHERS[i]), vector.get(i));
+		}
+	}
+
+	@Test
+	public void givenTwoVectors_whenMultipliedIntoDestination_thenSourcesAreUnchanged() {
+
+		ComplexVector vector = ComplexVector.of(VALUES);
+		ComplexVector dest = new ComplexVector(VALUES.length);
+
+		vector.times(ComplexVector.of(OTHERS), dest);
+
+		assertArrayEquals(VALUES, vector.toArray());
+		for (int i = 0; i < VALUES.length; i++) {
+			assertComplexEquals(VALUES[i].times(OTHERS[i]), dest.get(i));
+		}
+	}
+
+	@Test
+	public void givenVector_whenConjugateAndReciprocal_thenScalarResultsAreObtained() {
+
+		ComplexVector conjugate = ComplexVector.of(VALUES).conjugate();
+		ComplexVector reciprocal = ComplexVector.of(VALUES).reciprocal();
+
+		for (int i = 0; i < VALUES.length; i++) {
+			assertEquals(VALUES[i].conjugate(), conjugate.get(i));
+			assertComplexEquals(VALUES[i].reciprocal(), reciprocal.get(i));
+		}
+	}
+
+	@Test
+	public void givenVectorOfAnyMagnitude_whenReciprocal_thenExactlyTheScalarResultIsObtained() {
+
+		Random random = new Random(7);
+		Complex[] values = new Complex[1000];
+		for (int i = 0; i < values.length; i++) {
+			double scale = Math.pow(10, random.nextInt(600) - 300);
+			values[i] = new Complex(random.nextGaussian() * scale, random.nextGaussian() * scale);
+		}
+
+		ComplexVector reciprocal = ComplexVector.of(values).reciprocal();
+
+		for (int i = 0; i < values.length; i++) {
+			assertEquals(values[i].reciprocal().getRealPart(), reciprocal.getRealPart(i), 0.0);
+			assertEquals(values[i].reciprocal().getImaginaryPart(), reciprocal.getImaginaryPart(i), 0.0);
+		}
+	}
+
+	@Test
+	public void givenVector_whenAbsAndPhase_thenScalarResultsAreObtained() {
+
+		ComplexVector vector = ComplexVector.of(VALUES);
+
+		double[] abs = vector.abs(new double[VALUES.length]);
+		double[] phase = vector.phase(new double[VALUES.length]);
+
+		for (int i = 0; i < VALUES.length; i++) {
+			assertEquals(VALUES[i].abs(), abs[i], 1e-12);
+			assertEquals(VALUES[i].phase(), phase[i], 1e-12);
+		}
+	}
+
+	@Test
+	public void givenVectorsOfDifferentSize_whenAdded_thenExceptionIsThrown() {
+
+		ComplexVector vector = new ComplexVector(2);
+
+		assertThrows(IllegalArgumentException.class, () -> vector.add(new ComplexVector(3)));
+	}
+
+	private static void assertComplexEquals(Complex expected, Complex actual) {
+		assertEquals(expected.getRealPart(), actual.getRealPart(), 1e-12);
+		assertEquals(expected.getImaginaryPart(), actual.getImaginaryPart(), 1e-12);
+	}
+}
@@ -0,0 +1,69 @@
+package es.codeurjc.test.complex;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MappedComplexStoreTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	public void givenNewStore_whenValuesAreWrittenAndReopened_thenSameValuesAreRead()
+			throws IOException {
+
+		Path file = dir.resolve("samples.bin");
+		ComplexVector vector = ComplexVector.of(new Complex(1, -1), new Complex(2.5, 0),
+				new Complex(0, 3));
+
+		try (MappedComplexStore store = MappedComplexStore.create(file, 10)) {
+			store.write(4, vector);
+			store.set(9, new Complex(-7, 7));
+		}
+
+		assertEquals(10 * ComplexCodec.BYTES, Files.size(file));
+		try (MappedComplexStore store = MappedComplexStore.open(file, false)) {
+			assertEquals(10, store.size());
+			assertEquals(Complex.ZERO, store.get(0));
+			assertArrayEquals(vector.toArray(), store.read(4, new ComplexVector(3)).toArray());
+			assertEquals(-7, store.getRealPart(9));
+			assertEquals(7, store.getImaginaryPart(9));
+		}
+	}
+
+	@Test
+	public void givenReadOnlyStore_whenWriting_thenExceptionIsThrown() throws IOException {
+
+		Path file = dir.resolve("read_only.bin");
+		MappedComplexStore.create(file, 1).close();
+
+		try (MappedComplexStore store = MappedComplexStore.open(file, false)) {
+			assertThrows(IllegalStateException.class, () -> store.set(0, Complex.ONE));
+		}
+	}
+
+	@Test
+	public void givenStore_whenReadingOutOfBounds_thenExceptionIsThrown() throws IOException {
+
+		try (MappedComplexStore store = MappedComplexStore.create(dir.resolve("small.bin"), 2)) {
+			assertThrows(IndexOutOfBoundsException.class, () -> store.get(2));
+			assertThrows(IndexOutOfBoundsException.class,
+					() -> store.read(1, new ComplexVector(2)));
+		}
+	}
+
+	@Test
+	public void givenFileWithPartialValue_whenOpened_thenExceptionIsThrown() throws IOException {
+
+		Path file = dir.resolve("broken.bin");
+		Files.write(file, new byte[ComplexCodec.BYTES + 3]);
+
+		assertThrows(IOException.class, () -> MappedComplexStore.open(file, false));
+	}
+}
@@ -0,0 +1,62 @@
+package es.codeurjc.test.complex;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class MutableComplexTest {
+
+	@Test
+	public void givenAccumulator_whenComplexValuesAreAdded_thenSumIsObtained() {
+
+		MutableComplex acc = new MutableComplex();
+
+		acc.addInPlace(new Complex(1, 2)).addInPlace(new Complex(3, -1));
+
+		assertEquals(new Complex(4, 1), acc.toImmutable());
+	}
+
+	@Test
+	public void givenAccumulator_whenMultipliedInPlace_thenSameAsComplexTimes() {
+
+		Complex a = new Complex(1.5, -2);
+		Complex b = new Complex(-0.5, 3);
+
+		MutableComplex acc = new MutableComplex(a).timesInPlace(b);
+
+		assertEquals(a.times(b), acc.toImmutable());
+	}
+
+	@Test
+	public void givenAccumulator_whenFma_thenProductIsAccumulated() {
+
+		Complex[] xs = { new Complex(1, 1), new Complex(2, -1), new Complex(0, 3) };
+		Complex[] ys = { new Complex(3, 0), new Complex(1, 1), new Complex(-2, 2) };
+
+		MutableComplex acc = new MutableComplex();
+		Complex expected = new Complex(0, 0);
+		for (int i = 0; i < xs.length; i++) {
+			acc.fma(xs[i], ys[i]);
+			expected = expected.add(xs[i].times(ys[i]));
+		}
+
+		assertEquals(expected, acc.toImmutable());
+	}
+
+	@Test
+	public void givenPolynomial_whenHornerEvaluation_thenSameAsChainedComplexOperations() {
+
+		// 2 + (1 - i) x + 3i x^2
+		Complex[] coefficients = { new Complex(2, 0), new Complex(1, -1), new Complex(0, 3) };
+		Complex x = new Complex(0.5, 2);
+
+		MutableComplex acc = new MutableComplex();
+		Complex expected = new Complex(0, 0);
+		for (int i = coefficients.length - 1; i >= 0; i--) {
+			acc.timesInPlace(x).addInPlace(coefficients[i]);
+			expected = expected.times(x).add(coefficients[i]);
+		}
+
+		assertEquals(expected, acc.toImmutable());
+	}
+}
@@ -0,0 +1,66 @@
+package es.codeurjc.test.chat.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.codeurjc.test.chat.Chat;
+import es.codeurjc.test.chat.ChatManager;
+import es.codeurjc.test.chat.OutboundMetrics;
+import es.codeurjc.test.chat.OutboundQueue;
+import es.codeurjc.test.chat.User;
+import es.codeurjc.test.chat.WebSocketUser;
+
+// Cost of one chat message broadcast to WebSocketUsers, per room size.
+// sendMessage encodes the frame once; encodePerRecipient is the former
+// path, which built and serialized one JSON object per member. Writes run
+// inline on a session that discards them, so only the fan-out is measured.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BroadcastBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	private int roomSize;
+
+	private Chat room;
+	private User sender;
+
+	@Setup
+	public void setup() throws Exception {
+		room = new ChatManager(1).newChat("Room", 1, TimeUnit.SECONDS);
+		OutboundMetrics metrics = new OutboundMetrics();
+		for (int i = 0; i < roomSize; i++) {
+			NullSession session = new NullSession();
+			OutboundQueue outbound = new OutboundQueue(session, 16,
+					OutboundQueue.OverflowPolicy.DROP_OLDEST, Runnable::run, metrics);
+			room.addUser(new WebSocketUser(session, "member-" + i, "007AFF", outbound));
+		}
+		sender = room.getUser("member-0");
+	}
+
+	@Benchmark
+	public void sendMessage() {
+		room.sendMessage(sender, "Hello everybody in this room");
+	}
+
+	@Benchmark
+	public void encodePerRecipient() {
+		for (User user : room.getUsers()) {
+			user.newMessage(room, sender, "Hello everybody in this room");
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package es.codeurjc.test.chat.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import es.codeurjc.test.chat.ChatRequest;
+
+// Incoming messages per second on one core. treeModel is the former
+// ChatHandler path: println of the payload, then readTree into a JsonNode;
+// streaming is ChatRequest.parse, which ChatHandler uses now.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class ChatRequestBenchmark {
+
+	private static final String MESSAGE = "{\"message\":\"Hello everybody, how is it going?\"}";
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final JsonFactory factory = new JsonFactory();
+
+	@Benchmark
+	public String treeModel() throws IOException {
+		System.out.println("Message received: " + MESSAGE);
+		JsonNode jsonMsg = mapper.readTree(MESSAGE);
+		return jsonMsg.hasNonNull("chat") ? jsonMsg.get("chat").asText()
+				: jsonMsg.get("message").asText();
+	}
+
+	@Benchmark
+	public String treeModelWithoutPrintln() throws IOException {
+		JsonNode jsonMsg = mapper.readTree(MESSAGE);
+		return jsonMsg.hasNonNull("chat") ? jsonMsg.get("chat").asText()
+				: jsonMsg.get("message").asText();
+	}
+
+	@Benchmark
+	public String streaming() throws IOException {
+		ChatRequest request = ChatRequest.parse(factory, MESSAGE);
+		return request.isJoin() ? request.getChat() : request.getMessage();
+	}
+}
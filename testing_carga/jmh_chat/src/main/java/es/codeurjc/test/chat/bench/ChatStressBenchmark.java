@@ -0,0 +1,85 @@
+package es.codeurjc.test.chat.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.codeurjc.test.chat.Chat;
+import es.codeurjc.test.chat.ChatManager;
+import es.codeurjc.test.chat.User;
+
+// All threads hammer the same ChatManager and the same room. Throughput
+// per thread count (-t 1, 2, 4, ... max) shows how each operation scales.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatStressBenchmark {
+
+	@Param({ "100" })
+	private int roomSize;
+
+	private ChatManager chatManager;
+	private Chat room;
+	private User sender;
+
+	private final AtomicLong ids = new AtomicLong();
+
+	@Setup
+	public void setup() throws Exception {
+		chatManager = new ChatManager(Integer.MAX_VALUE);
+		room = chatManager.newChat("Room", 1, TimeUnit.SECONDS);
+		for (int i = 0; i < roomSize; i++) {
+			User user = new NoOpUser("member-" + i);
+			chatManager.newUser(user);
+			room.addUser(user);
+		}
+		sender = room.getUser("member-0");
+	}
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+
+		User user;
+		Chat chat;
+
+		@Setup
+		public void setup(ChatStressBenchmark benchmark) throws Exception {
+			long id = benchmark.ids.incrementAndGet();
+			user = new NoOpUser("thread-" + id);
+			chat = benchmark.chatManager.newChat("thread-" + id, 1, TimeUnit.SECONDS);
+		}
+	}
+
+	// broadcast to every member of the shared room
+	@Benchmark
+	public void sendMessage() {
+		room.sendMessage(sender, "Hello");
+	}
+
+	// join and leave the shared room while others broadcast into it
+	@Benchmark
+	public void addAndRemoveUser(ThreadState state) {
+		room.addUser(state.user);
+		room.removeUser(state.user);
+	}
+
+	// look up an existing chat, the common path of newChat
+	@Benchmark
+	public Chat newChatExisting(ThreadState state) throws Exception {
+		return chatManager.newChat(state.chat.getName(), 1, TimeUnit.SECONDS);
+	}
+}
@@ -0,0 +1,57 @@
+package es.codeurjc.test.chat.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.codeurjc.test.chat.MessageJournal;
+
+// Cost that the journal adds to Chat.sendMessage: one append into the
+// mapped segment, while the fsync runs in the journal flusher thread
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageJournalBenchmark {
+
+	private Path directory;
+	private MessageJournal journal;
+
+	@Setup(Level.Iteration)
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("journal-bench");
+		journal = new MessageJournal(directory, 64 << 20, 64, 256, 100);
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() throws IOException {
+		journal.close();
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public long append() throws IOException {
+		return journal.append(System.currentTimeMillis(), "Room", "member-0",
+				"Hello everybody in this room");
+	}
+}
@@ -0,0 +1,51 @@
+package es.codeurjc.test.chat.bench;
+
+import java.util.Collection;
+
+import es.codeurjc.test.chat.Chat;
+import es.codeurjc.test.chat.User;
+
+// User whose notifications cost nothing, so the benchmarks measure the chat
+// core rather than the WebSocket transport
+public class NoOpUser implements User {
+
+	private final String name;
+
+	public NoOpUser(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String getColor() {
+		return "007AFF";
+	}
+
+	@Override
+	public void newChat(Chat chat) {
+	}
+
+	@Override
+	public void chatClosed(Chat chat) {
+	}
+
+	@Override
+	public void newUserInChat(Chat chat, User user) {
+	}
+
+	@Override
+	public void userExitedFromChat(Chat chat, User user) {
+	}
+
+	@Override
+	public void rosterChanged(Chat chat, Collection<User> joined, Collection<User> left) {
+	}
+
+	@Override
+	public void newMessage(Chat chat, User user, String message) {
+	}
+}
@@ -0,0 +1,84 @@
+package es.codeurjc.test.chat.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.codeurjc.test.chat.Chat;
+import es.codeurjc.test.chat.ChatManager;
+import es.codeurjc.test.chat.PresenceBatcher;
+
+// Mass reconnect: users join an empty room one after another, as after a
+// deploy, until every member has been told about every other one. Without
+// a batcher each join notifies every member already in the room; with one,
+// the whole storm ends in a single roster delta per member.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PresenceStormBenchmark {
+
+	@Param({ "1000", "10000" })
+	private int users;
+
+	@Param({ "false", "true" })
+	private boolean batched;
+
+	private NoOpUser[] members;
+	private PresenceBatcher batcher;
+	private Chat chat;
+
+	@Setup(Level.Trial)
+	public void createUsers() {
+		members = new NoOpUser[users];
+		for (int i = 0; i < users; i++) {
+			members[i] = new NoOpUser("user-" + i);
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void createChat() throws Exception {
+		ChatManager chatManager = new ChatManager(1);
+		if (batched) {
+			// long enough for the whole storm to fall in one window
+			batcher = new PresenceBatcher(50);
+			chatManager.setPresenceBatcher(batcher);
+		}
+		chat = chatManager.newChat("Room", 1, TimeUnit.SECONDS);
+	}
+
+	@TearDown(Level.Invocation)
+	public void closeBatcher() {
+		if (batcher != null) {
+			batcher.close();
+		}
+	}
+
+	@Benchmark
+	public long reconnectStorm() throws InterruptedException {
+		for (NoOpUser member : members) {
+			chat.addUser(member);
+		}
+		if (!batched) {
+			return 0;
+		}
+		while (batcher.getBatches() == 0) {
+			Thread.sleep(1);
+		}
+		return batcher.getEmitted();
+	}
+}
@@ -0,0 +1,48 @@
+package es.codeurjc.test.chat.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.codeurjc.test.chat.ChatManager;
+
+// Create and close a room while totalUsers are registered, of which only
+// SUBSCRIBERS follow all chats. The score should not depend on totalUsers.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoomEventBenchmark {
+
+	static final int SUBSCRIBERS = 10;
+
+	@Param({ "1000", "100000", "1000000" })
+	private int totalUsers;
+
+	private ChatManager chatManager;
+
+	@Setup
+	public void setup() {
+		chatManager = new ChatManager(Integer.MAX_VALUE);
+		for (int i = 0; i < totalUsers; i++) {
+			chatManager.newUser(new NoOpUser("user-" + i), i < SUBSCRIBERS);
+		}
+	}
+
+	@Benchmark
+	public void createAndCloseChat() throws Exception {
+		chatManager.newChat("Room", 1, TimeUnit.SECONDS).close();
+	}
+}
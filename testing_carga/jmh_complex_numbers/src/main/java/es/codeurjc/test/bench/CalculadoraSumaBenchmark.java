@@ -0,0 +1,59 @@
+package es.codeurjc.test.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.codeurjc.test.ejem.Calculadora;
+
+// Throughput of every Calculadora.suma(double[], ModoSuma) mode per dataset
+// size; the compensated modes trade speed for accuracy, so compare them with
+// SIMPLE at the same size. sumaPerCall is the one operation per call baseline.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CalculadoraSumaBenchmark {
+
+	@Param({ "1024", "65536", "4194304" })
+	private int size;
+
+	@Param({ "SIMPLE", "KAHAN", "NEUMAIER", "PAREJAS_PARALELA" })
+	private Calculadora.ModoSuma modo;
+
+	private final Calculadora calculadora = new Calculadora();
+
+	private double[] ops;
+
+	@Setup
+	public void setup() {
+		ops = new Random(42).doubles(size, -1, 1).toArray();
+	}
+
+	@Benchmark
+	public double sumaLote() {
+		return calculadora.suma(ops, modo);
+	}
+
+	@Benchmark
+	public double sumaPerCall() {
+		double total = 0;
+		for (double op : ops) {
+			total = calculadora.suma(total, op);
+		}
+		return total;
+	}
+}
@@ -0,0 +1,73 @@
+package es.codeurjc.test.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.codeurjc.test.cucumber.Calculator;
+import es.codeurjc.test.cucumber.CalculatorExpression;
+
+// Throughput of every Calculator.add(int[], AddMode) mode per dataset size,
+// so the fastest correct mode can be picked by comparing ops/s at the same
+// size. addPerCall is the one operation per call baseline and
+// addColumnsCompiled the same batch through a compiled expression.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CalculatorAddBenchmark {
+
+	@Param({ "1024", "65536", "4194304" })
+	private int size;
+
+	@Param({ "WRAPPING", "EXACT", "CHECKED", "PARALLEL" })
+	private Calculator.AddMode mode;
+
+	private final Calculator calculator = new Calculator();
+
+	private int[] values;
+	private CalculatorExpression expression;
+	private int[][] columns;
+	private int[] dest;
+
+	@Setup
+	public void setup() {
+		// small values so CHECKED does not overflow and all modes agree
+		values = new Random(42).ints(size, -1000, 1000).toArray();
+		expression = calculator.compile("a + b", "a", "b");
+		columns = new int[][] { values, values };
+		dest = new int[size];
+	}
+
+	@Benchmark
+	public long addBatch() {
+		return calculator.add(values, mode);
+	}
+
+	@Benchmark
+	public int addPerCall() {
+		int total = 0;
+		for (int value : values) {
+			total = calculator.add(total, value);
+		}
+		return total;
+	}
+
+	@Benchmark
+	public int[] addColumnsCompiled() {
+		return expression.evaluate(columns, dest);
+	}
+}
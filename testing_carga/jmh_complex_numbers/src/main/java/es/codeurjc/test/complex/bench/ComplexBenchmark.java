@@ -0,0 +1,127 @@
+package es.codeurjc.test.complex.bench;
+
+import static java.lang.Math.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.codeurjc.test.complex.Complex;
+import es.codeurjc.test.complex.ComplexFormat;
+
+// Cost of a single call to every Complex operation. Run with "-prof gc"
+// to also get the allocation rate per operation.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ComplexBenchmark {
+
+	private Complex a;
+	private Complex b;
+	private Complex aCopy;
+	private String text;
+	private StringBuilder builder;
+
+	@Setup
+	public void setUp() {
+		a = new Complex(3.25, -1.5);
+		b = new Complex(-0.75, 2.0);
+		aCopy = new Complex(3.25, -1.5);
+		text = "3.25 + -1.5i ";
+		builder = new StringBuilder();
+	}
+
+	@Benchmark
+	public double abs() {
+		return a.abs();
+	}
+
+	// reference for abs(): the former sqrt(pow(re, 2) + pow(im, 2)) version
+	@Benchmark
+	public double absWithPow() {
+		return sqrt(pow(a.getRealPart(), 2.0) + pow(a.getImaginaryPart(), 2.0));
+	}
+
+	@Benchmark
+	public double phase() {
+		return a.phase();
+	}
+
+	@Benchmark
+	public Complex reciprocal() {
+		return a.reciprocal();
+	}
+
+	@Benchmark
+	public Complex add() {
+		return a.add(b);
+	}
+
+	@Benchmark
+	public Complex times() {
+		return a.times(b);
+	}
+
+	@Benchmark
+	public Complex divides() {
+		return a.divides(b);
+	}
+
+	// reference for divides(): the former two step version, reciprocal with
+	// Math.pow followed by times, which allocates a temporary Complex
+	@Benchmark
+	public Complex dividesTwoStep() {
+		double scale = pow(b.getRealPart(), 2.0) + pow(b.getImaginaryPart(), 2.0);
+		Complex reciprocal = new Complex(b.getRealPart() / scale, -b.getImaginaryPart() / scale);
+		return a.times(reciprocal);
+	}
+
+	// small lattice values, cached by valueOf
+	@Benchmark
+	public Complex valueOfCached() {
+		return Complex.valueOf(1, -1);
+	}
+
+	@Benchmark
+	public Complex newComplex() {
+		return new Complex(1, -1);
+	}
+
+	@Benchmark
+	public int hashCodeComplex() {
+		return a.hashCode();
+	}
+
+	@Benchmark
+	public boolean equalsComplex() {
+		return a.equals(aCopy);
+	}
+
+	@Benchmark
+	public String toStringComplex() {
+		return a.toString();
+	}
+
+	@Benchmark
+	public Complex parse() {
+		return ComplexFormat.parse(text);
+	}
+
+	@Benchmark
+	public StringBuilder formatIntoBuilder() {
+		builder.setLength(0);
+		return ComplexFormat.format(a, builder);
+	}
+}
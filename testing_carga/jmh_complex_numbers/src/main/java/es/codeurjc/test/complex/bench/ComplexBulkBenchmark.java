@@ -0,0 +1,162 @@
+package es.codeurjc.test.complex.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import es.codeurjc.test.complex.Complex;
+import es.codeurjc.test.complex.ComplexVector;
+
+// Element-wise operations over SIZE values, reported per element. The
+// "objects" variants loop over Complex[], the "vector" variants use
+// ComplexVector, which should not allocate on the hot path. Forks add the
+// Vector API module so ComplexArrays uses SIMD; run with
+// "-jvmArgsAppend -Dscalar" to replace them and measure the scalar fallback.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+@OperationsPerInvocation(ComplexBulkBenchmark.SIZE)
+public class ComplexBulkBenchmark {
+
+	static final int SIZE = 4096;
+
+	private Complex[] a;
+	private Complex[] b;
+	private Complex[] objectsDest;
+	private double[] doublesDest;
+
+	private ComplexVector aVector;
+	private ComplexVector bVector;
+	private ComplexVector vectorDest;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		a = new Complex[SIZE];
+		b = new Complex[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			a[i] = new Complex(random.nextGaussian(), random.nextGaussian());
+			b[i] = new Complex(random.nextGaussian(), random.nextGaussian());
+		}
+		objectsDest = new Complex[SIZE];
+		doublesDest = new double[SIZE];
+
+		aVector = ComplexVector.of(a);
+		bVector = ComplexVector.of(b);
+		vectorDest = new ComplexVector(SIZE);
+	}
+
+	@Benchmark
+	public Complex[] addObjects() {
+		for (int i = 0; i < SIZE; i++) {
+			objectsDest[i] = a[i].add(b[i]);
+		}
+		return objectsDest;
+	}
+
+	@Benchmark
+	public ComplexVector addVector() {
+		return aVector.add(bVector, vectorDest);
+	}
+
+	@Benchmark
+	public Complex[] timesObjects() {
+		for (int i = 0; i < SIZE; i++) {
+			objectsDest[i] = a[i].times(b[i]);
+		}
+		return objectsDest;
+	}
+
+	@Benchmark
+	public ComplexVector timesVector() {
+		return aVector.times(bVector, vectorDest);
+	}
+
+	@Benchmark
+	public Complex[] dividesObjects() {
+		for (int i = 0; i < SIZE; i++) {
+			objectsDest[i] = a[i].divides(b[i]);
+		}
+		return objectsDest;
+	}
+
+	@Benchmark
+	public ComplexVector dividesVector() {
+		return aVector.divides(bVector, vectorDest);
+	}
+
+	@Benchmark
+	public Complex[] reciprocalObjects() {
+		for (int i = 0; i < SIZE; i++) {
+			objectsDest[i] = a[i].reciprocal();
+		}
+		return objectsDest;
+	}
+
+	@Benchmark
+	public ComplexVector reciprocalVector() {
+		return aVector.reciprocal(vectorDest);
+	}
+
+	@Benchmark
+	public double[] absObjects() {
+		for (int i = 0; i < SIZE; i++) {
+			doublesDest[i] = a[i].abs();
+		}
+		return doublesDest;
+	}
+
+	@Benchmark
+	public double[] absVector() {
+		return aVector.abs(doublesDest);
+	}
+
+	@Benchmark
+	public double[] phaseObjects() {
+		for (int i = 0; i < SIZE; i++) {
+			doublesDest[i] = a[i].phase();
+		}
+		return doublesDest;
+	}
+
+	@Benchmark
+	public double[] phaseVector() {
+		return aVector.phase(doublesDest);
+	}
+
+	@Benchmark
+	public void hashCodeObjects(Blackhole blackhole) {
+		for (int i = 0; i < SIZE; i++) {
+			blackhole.consume(a[i].hashCode());
+		}
+	}
+
+	@Benchmark
+	public void equalsObjects(Blackhole blackhole) {
+		for (int i = 0; i < SIZE; i++) {
+			blackhole.consume(a[i].equals(b[i]));
+		}
+	}
+
+	@Benchmark
+	public void toStringObjects(Blackhole blackhole) {
+		for (int i = 0; i < SIZE; i++) {
+			blackhole.consume(a[i].toString());
+		}
+	}
+}
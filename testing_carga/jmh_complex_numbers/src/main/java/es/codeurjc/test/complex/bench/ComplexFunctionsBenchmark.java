@@ -0,0 +1,108 @@
+package es.codeurjc.test.complex.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.codeurjc.test.complex.Complex;
+import es.codeurjc.test.complex.ComplexVector;
+
+// Transcendental functions against the naive versions callers used to
+// write by hand with getRealPart / getImaginaryPart.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ComplexFunctionsBenchmark {
+
+	static final int SIZE = 4096;
+
+	private static final int EXPONENT = 13;
+
+	private Complex a;
+	private Complex[] values;
+	private ComplexVector vector;
+	private ComplexVector sinDest;
+	private ComplexVector cosDest;
+
+	@Setup
+	public void setUp() {
+		a = new Complex(0.75, -1.25);
+		Random random = new Random(42);
+		values = new Complex[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			values[i] = new Complex(random.nextGaussian(), random.nextGaussian());
+		}
+		vector = ComplexVector.of(values);
+		sinDest = new ComplexVector(SIZE);
+		cosDest = new ComplexVector(SIZE);
+	}
+
+	@Benchmark
+	public Complex powBinary() {
+		return a.pow(EXPONENT);
+	}
+
+	@Benchmark
+	public Complex powRepeatedTimes() {
+		Complex result = Complex.ONE;
+		for (int i = 0; i < EXPONENT; i++) {
+			result = result.times(a);
+		}
+		return result;
+	}
+
+	// exp(n * log(a)) built from the parts
+	@Benchmark
+	public Complex powNaiveExpLog() {
+		double logAbs = Math.log(a.abs());
+		double phase = a.phase();
+		double scale = Math.exp(EXPONENT * logAbs);
+		return new Complex(scale * Math.cos(EXPONENT * phase), scale * Math.sin(EXPONENT * phase));
+	}
+
+	@Benchmark
+	public Complex exp() {
+		return a.exp();
+	}
+
+	@Benchmark
+	public Complex log() {
+		return a.log();
+	}
+
+	@Benchmark
+	public Complex sqrt() {
+		return a.sqrt();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public ComplexVector sinCosVector() {
+		vector.sinCos(sinDest, cosDest);
+		return sinDest;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public ComplexVector sinCosSeparate() {
+		for (int i = 0; i < SIZE; i++) {
+			sinDest.set(i, values[i].sin());
+			cosDest.set(i, values[i].cos());
+		}
+		return sinDest;
+	}
+}
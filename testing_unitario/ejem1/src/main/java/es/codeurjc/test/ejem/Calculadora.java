@@ -1,7 +1,25 @@
 package es.codeurjc.test.ejem;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
 public class Calculadora {
 
+	// Como suma(double[], ModoSuma) acumula un lote de operandos
+	public enum ModoSuma {
+		// suma de izquierda a derecha, el error crece con el número de operandos
+		SIMPLE,
+		// suma compensada de Kahan
+		KAHAN,
+		// variante de Neumaier, también correcta si un operando supera al total
+		NEUMAIER,
+		// suma por parejas de mitades en el pool fork-join común
+		PAREJAS_PARALELA
+	}
+
+	static final int BLOQUE_PAREJAS = 128;
+	static final int UMBRAL_PARALELO = 1 << 16;
+
 	public double suma(double op1, double op2) {
 		return op1 + op2;
 	}
@@ -9,4 +27,85 @@ public class Calculadora {
 	public double resta(double op1, double op2) {
 		return op1 - op2;
 	}
+
+	// suma de todos los operandos con el modo indicado
+	public double suma(double[] ops, ModoSuma modo) {
+		return switch (modo) {
+		case SIMPLE -> sumaSimple(ops, 0, ops.length);
+		case KAHAN -> sumaKahan(ops);
+		case NEUMAIER -> sumaNeumaier(ops);
+		case PAREJAS_PARALELA -> ops.length < UMBRAL_PARALELO ? sumaParejas(ops, 0, ops.length)
+				: ForkJoinPool.commonPool().invoke(new SumaParejas(ops, 0, ops.length));
+		};
+	}
+
+	private static double sumaSimple(double[] ops, int desde, int hasta) {
+		double total = 0;
+		for (int i = desde; i < hasta; i++) {
+			total += ops[i];
+		}
+		return total;
+	}
+
+	private static double sumaKahan(double[] ops) {
+		double total = 0;
+		double compensacion = 0;
+		for (double op : ops) {
+			double y = op - compensacion;
+			double t = total + y;
+			compensacion = (t - total) - y;
+			total = t;
+		}
+		return total;
+	}
+
+	private static double sumaNeumaier(double[] ops) {
+		double total = 0;
+		double compensacion = 0;
+		for (double op : ops) {
+			double t = total + op;
+			if (Math.abs(total) >= Math.abs(op)) {
+				compensacion += (total - t) + op;
+			} else {
+				compensacion += (op - t) + total;
+			}
+			total = t;
+		}
+		return total + compensacion;
+	}
+
+	// el error crece con log(n) en lugar de con n; los bloques pequeños se
+	// suman de forma simple para no recurrir hasta cada operando
+	private static double sumaParejas(double[] ops, int desde, int hasta) {
+		if (hasta - desde <= BLOQUE_PAREJAS) {
+			return sumaSimple(ops, desde, hasta);
+		}
+		int mitad = (desde + hasta) >>> 1;
+		return sumaParejas(ops, desde, mitad) + sumaParejas(ops, mitad, hasta);
+	}
+
+	private static class SumaParejas extends RecursiveTask<Double> {
+
+		private final double[] ops;
+		private final int desde;
+		private final int hasta;
+
+		SumaParejas(double[] ops, int desde, int hasta) {
+			this.ops = ops;
+			this.desde = desde;
+			this.hasta = hasta;
+		}
+
+		@Override
+		protected Double compute() {
+			if (hasta - desde <= UMBRAL_PARALELO) {
+				return sumaParejas(ops, desde, hasta);
+			}
+			int mitad = (desde + hasta) >>> 1;
+			SumaParejas izquierda = new SumaParejas(ops, desde, mitad);
+			izquierda.fork();
+			double derecha = new SumaParejas(ops, mitad, hasta).compute();
+			return izquierda.join() + derecha;
+		}
+	}
 }
@@ -0,0 +1,64 @@
+package es.codeurjc.test.ejem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import es.codeurjc.test.ejem.Calculadora.ModoSuma;
+
+public class CalculadoraSumaTest {
+
+	Calculadora calc;
+
+	@BeforeEach
+	public void setUp() {
+		this.calc = new Calculadora();
+	}
+
+	@ParameterizedTest
+	@EnumSource(ModoSuma.class)
+	public void testSumaLoteDeEnteros(ModoSuma modo) {
+
+		double[] ops = { 1, 2, 3, 4, -5 };
+
+		assertEquals(5, calc.suma(ops, modo), 0);
+	}
+
+	@Test
+	public void testSumaCompensadaNoPierdePrecision() {
+
+		double[] ops = new double[1_000_000];
+		Arrays.fill(ops, 0.1);
+
+		double simple = calc.suma(ops, ModoSuma.SIMPLE);
+		double kahan = calc.suma(ops, ModoSuma.KAHAN);
+		double neumaier = calc.suma(ops, ModoSuma.NEUMAIER);
+
+		assertEquals(100_000, kahan, 1e-9);
+		assertEquals(100_000, neumaier, 1e-9);
+		assertTrue(Math.abs(simple - 100_000) > 1e-9, "la suma simple acumula error");
+	}
+
+	@Test
+	public void testNeumaierConOperandoMayorQueElTotal() {
+
+		double[] ops = { 1, 1e100, 1, -1e100 };
+
+		assertEquals(2, calc.suma(ops, ModoSuma.NEUMAIER), 0);
+	}
+
+	@Test
+	public void testSumaPorParejasEnParalelo() {
+
+		double[] ops = new double[1_000_000];
+		Arrays.fill(ops, 0.1);
+
+		assertEquals(100_000, calc.suma(ops, ModoSuma.PAREJAS_PARALELA), 1e-6);
+	}
+}
@@ -1,13 +1,19 @@
 package es.codeurjc.test.chat;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+// Users may join, leave and talk from different threads. With a single
+// MediaServer, allowMoreUsers() and addUser() run under the server's
+// monitor, so two chats of this process can't both take its last slot; a
+// server that other processes also fill can still be overbooked between
+// the two calls. A MediaServerPool keeps its own slot counters instead.
 public class Chat {
 
 	private String name;
-	private List<User> users = new ArrayList<>();
+	private List<User> users = new CopyOnWriteArrayList<>();
 	private MediaServer mediaServer;
+	private MediaServerPool mediaServerPool;
 
 	public Chat(String name) {
 		this.name = name;
@@ -18,14 +24,24 @@ public class Chat {
 		this.mediaServer = mediaServer;
 	}
 
+	public Chat(String name, MediaServerPool mediaServerPool) {
+		this.name = name;
+		this.mediaServerPool = mediaServerPool;
+	}
+
 	public void addUser(User user) {
 		
 		if(mediaServer != null) {
-			if(!mediaServer.allowMoreUsers()) {
-				throw new NotEnoughResourcesException();
-			} else {
-				mediaServer.addUser(user);
+			synchronized (mediaServer) {
+				if(!mediaServer.allowMoreUsers()) {
+					throw new NotEnoughResourcesException();
+				} else {
+					mediaServer.addUser(user);
+				}
 			}
+		} else if(mediaServerPool != null) {
+			// reserves the slot and adds the user in one step
+			mediaServerPool.reserve(user);
 		}
 
 		for (User u : users) {
@@ -37,10 +53,15 @@ public class Chat {
 
 	public void removeUser(User user) {
 
-		users.remove(user);
+		boolean removed = users.remove(user);
 		
 		if(mediaServer != null) {
-			mediaServer.deleteUser(user);
+			synchronized (mediaServer) {
+				mediaServer.deleteUser(user);
+			}
+		} else if(mediaServerPool != null && removed) {
+			// the pool counts one reference per chat the user is in
+			mediaServerPool.release(user);
 		}
 
 		for (User u : users) {
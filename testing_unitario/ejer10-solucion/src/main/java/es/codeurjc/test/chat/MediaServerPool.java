@@ -0,0 +1,227 @@
+package es.codeurjc.test.chat;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Farm of media servers, each with a fixed number of user slots. A slot is
+// reserved with a compare-and-set on the server's counter before the user
+// is added to it, so concurrent reservations can never overbook a server.
+//
+// A user holds one slot however many chats it is in: every reserve() is
+// counted and the slot is given back on the matching last release(). The
+// assignment is locked while the user is added to its server, so a
+// concurrent reserve() or release() of the same user waits for addUser()
+// to finish and deleteUser() never runs before it.
+public class MediaServerPool {
+
+	public enum Placement {
+		// scans every server for the lowest load, best balance, O(servers)
+		LEAST_LOADED,
+		// the less loaded of two random servers, O(1) and close to the best
+		// balance; falls back to a scan when both are full
+		POWER_OF_TWO_CHOICES
+	}
+
+	private final Placement placement;
+	private final List<Node> nodes = new CopyOnWriteArrayList<>();
+	private final ConcurrentMap<User, Assignment> assignments = new ConcurrentHashMap<>();
+	private final LongAdder rejected = new LongAdder();
+
+	public MediaServerPool(Placement placement) {
+		this.placement = placement;
+	}
+
+	public MediaServerPool addServer(MediaServer mediaServer, int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		}
+		nodes.add(new Node(mediaServer, capacity));
+		return this;
+	}
+
+	// places the user in a server with a free slot and returns that server;
+	// a user already placed keeps its server and gets one more reference
+	public MediaServer reserve(User user) {
+		while (true) {
+			Assignment assigned = assignments.get(user);
+			if (assigned != null) {
+				synchronized (assigned) {
+					if (!assigned.released) {
+						assigned.references++;
+						return assigned.node.mediaServer;
+					}
+				}
+				// released meanwhile, place the user again
+				continue;
+			}
+			Node node = placement == Placement.POWER_OF_TWO_CHOICES ? reserveTwoChoices() : reserveLeastLoaded();
+			if (node == null) {
+				rejected.increment();
+				throw new NotEnoughResourcesException("No media server has capacity for " + user.getName());
+			}
+			Assignment created = new Assignment(node);
+			synchronized (created) {
+				if (assignments.putIfAbsent(user, created) != null) {
+					// reserved concurrently for the same user
+					node.reserved.decrementAndGet();
+					continue;
+				}
+				try {
+					node.mediaServer.addUser(user);
+				} catch (RuntimeException e) {
+					created.released = true;
+					assignments.remove(user, created);
+					node.reserved.decrementAndGet();
+					throw e;
+				}
+				return node.mediaServer;
+			}
+		}
+	}
+
+	// drops one reference and, on the last one, removes the user from its
+	// server and frees the slot
+	public void release(User user) {
+		Assignment assigned = assignments.get(user);
+		if (assigned == null) {
+			return;
+		}
+		synchronized (assigned) {
+			if (assigned.released || --assigned.references > 0) {
+				return;
+			}
+			assigned.released = true;
+			assignments.remove(user, assigned);
+			try {
+				assigned.node.mediaServer.deleteUser(user);
+			} finally {
+				assigned.node.reserved.decrementAndGet();
+			}
+		}
+	}
+
+	public MediaServer getMediaServer(User user) {
+		Assignment assigned = assignments.get(user);
+		return assigned != null ? assigned.node.mediaServer : null;
+	}
+
+	// users placed in the given server
+	public int getReserved(MediaServer mediaServer) {
+		for (Node node : nodes) {
+			if (node.mediaServer == mediaServer) {
+				return node.reserved.get();
+			}
+		}
+		throw new IllegalArgumentException("Media server is not in the pool");
+	}
+
+	public int getReserved() {
+		int reserved = 0;
+		for (Node node : nodes) {
+			reserved += node.reserved.get();
+		}
+		return reserved;
+	}
+
+	public int getCapacity() {
+		int capacity = 0;
+		for (Node node : nodes) {
+			capacity += node.capacity;
+		}
+		return capacity;
+	}
+
+	// reservations refused because every server was full
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	private Node reserveLeastLoaded() {
+		while (true) {
+			Node best = null;
+			for (Node node : nodes) {
+				if (node.hasRoom() && (best == null || node.load() < best.load())) {
+					best = node;
+				}
+			}
+			if (best == null) {
+				return null;
+			}
+			if (best.tryReserve()) {
+				return best;
+			}
+			// lost the last slot of best to another thread, look again
+		}
+	}
+
+	private Node reserveTwoChoices() {
+		int size = nodes.size();
+		if (size > 1) {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			int first = random.nextInt(size);
+			int second = random.nextInt(size - 1);
+			if (second >= first) {
+				second++;
+			}
+			Node a = nodes.get(first);
+			Node b = nodes.get(second);
+			Node preferred = a.load() <= b.load() ? a : b;
+			Node other = preferred == a ? b : a;
+			if (preferred.tryReserve()) {
+				return preferred;
+			}
+			if (other.tryReserve()) {
+				return other;
+			}
+		}
+		return reserveLeastLoaded();
+	}
+
+	// guarded by its own monitor
+	private static class Assignment {
+
+		final Node node;
+		int references = 1;
+		boolean released;
+
+		Assignment(Node node) {
+			this.node = node;
+		}
+	}
+
+	private static class Node {
+
+		final MediaServer mediaServer;
+		final int capacity;
+		final AtomicInteger reserved = new AtomicInteger();
+
+		Node(MediaServer mediaServer, int capacity) {
+			this.mediaServer = mediaServer;
+			this.capacity = capacity;
+		}
+
+		boolean hasRoom() {
+			return reserved.get() < capacity;
+		}
+
+		double load() {
+			return (double) reserved.get() / capacity;
+		}
+
+		boolean tryReserve() {
+			int current;
+			do {
+				current = reserved.get();
+				if (current >= capacity) {
+					return false;
+				}
+			} while (!reserved.compareAndSet(current, current + 1));
+			return true;
+		}
+	}
+}
@@ -1,8 +1,16 @@
 package es.codeurjc.test.chat;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.jupiter.api.Test;
 
 public class ChatMediaServerTest extends ChatTest {
@@ -48,4 +56,38 @@ public class ChatMediaServerTest extends ChatTest {
 		verify(mediaServer, never()).addUser(any());
 	}
 
+	@Test
+	public void givenChatsSharingAMediaServer_whenUsersJoinConcurrently_thenItIsNeverOverbooked() throws Exception {
+
+		// Given
+		AtomicInteger users = new AtomicInteger();
+		MediaServer mediaServer = mock(MediaServer.class);
+		when(mediaServer.allowMoreUsers()).thenAnswer(invocation -> users.get() < 10);
+		doAnswer(invocation -> users.incrementAndGet()).when(mediaServer).addUser(any());
+		Chat first = new Chat("Primero", mediaServer);
+		Chat second = new Chat("Segundo", mediaServer);
+
+		// When
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<?>> joins = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			Chat chat = i % 2 == 0 ? first : second;
+			User user = createUser("user" + i);
+			joins.add(executor.submit(() -> {
+				try {
+					chat.addUser(user);
+				} catch (NotEnoughResourcesException e) {
+					// server is full
+				}
+			}));
+		}
+		for (Future<?> join : joins) {
+			join.get();
+		}
+		executor.shutdown();
+
+		// Then
+		assertThat(users.get()).isEqualTo(10);
+	}
+
 }
@@ -0,0 +1,290 @@
+package es.codeurjc.test.chat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class MediaServerPoolTest extends ChatTest {
+
+	@Test
+	public void givenPoolWithFreeSlots_whenAUserIsAdded_thenItIsPlacedInTheLeastLoadedServer() {
+
+		// Given
+		MediaServer busy = mock(MediaServer.class);
+		MediaServer idle = mock(MediaServer.class);
+		MediaServerPool pool = new MediaServerPool(MediaServerPool.Placement.LEAST_LOADED)
+				.addServer(busy, 10)
+				.addServer(idle, 10);
+		pool.reserve(createUser("Pepe"));
+
+		Chat chat = new Chat("Mi chat", pool);
+
+		// When
+		User user = createUser("Juan");
+		chat.addUser(user);
+
+		// Then
+		verify(idle).addUser(user);
+		verify(busy, never()).addUser(user);
+		assertThat(pool.getMediaServer(user)).isSameAs(idle);
+	}
+
+	@Test
+	public void givenFullPool_whenAUserIsAdded_thenExceptionIsThrown() {
+
+		// Given
+		MediaServer mediaServer = mock(MediaServer.class);
+		MediaServerPool pool = new MediaServerPool(MediaServerPool.Placement.POWER_OF_TWO_CHOICES)
+				.addServer(mediaServer, 1);
+		Chat chat = new Chat("Mi chat", pool);
+		chat.addUser(createUser("Pepe"));
+
+		// When
+		User user = createUser("Juan");
+
+		assertThatThrownBy(() -> {
+
+			chat.addUser(user);
+
+		}).isInstanceOf(NotEnoughResourcesException.class);
+
+		// Then
+		verify(mediaServer, never()).addUser(user);
+		assertThat(pool.getRejected()).isEqualTo(1);
+	}
+
+	@Test
+	public void givenChatWithUser_whenUserIsRemoved_thenItsSlotIsReleased() {
+
+		// Given
+		MediaServer mediaServer = mock(MediaServer.class);
+		MediaServerPool pool = new MediaServerPool(MediaServerPool.Placement.LEAST_LOADED)
+				.addServer(mediaServer, 1);
+		Chat chat = new Chat("Mi chat", pool);
+		User user = createUser("Juan");
+		chat.addUser(user);
+
+		// When
+		chat.removeUser(user);
+
+		// Then
+		verify(mediaServer).deleteUser(user);
+		assertThat(pool.getReserved()).isZero();
+		chat.addUser(createUser("Pepe"));
+	}
+
+	@Test
+	public void givenFailingServer_whenAUserIsAdded_thenTheSlotIsNotKept() {
+
+		// Given
+		MediaServer mediaServer = mock(MediaServer.class);
+		doThrow(new IllegalStateException("down")).when(mediaServer).addUser(any());
+		MediaServerPool pool = new MediaServerPool(MediaServerPool.Placement.LEAST_LOADED)
+				.addServer(mediaServer, 1);
+
+		// When
+		assertThatThrownBy(() -> pool.reserve(createUser("Juan")))
+				.isInstanceOf(IllegalStateException.class);
+
+		// Then
+		assertThat(pool.getReserved()).isZero();
+	}
+
+	@Test
+	public void givenUserInTwoChats_whenItLeavesOne_thenItKeepsItsSlot() {
+
+		// Given
+		MediaServer mediaServer = mock(MediaServer.class);
+		MediaServerPool pool = new MediaServerPool(MediaServerPool.Placement.LEAST_LOADED)
+				.addServer(mediaServer, 1);
+		Chat first = new Chat("Primero", pool);
+		Chat second = new Chat("Segundo", pool);
+		User user = createUser("Juan");
+		first.addUser(user);
+		second.addUser(user);
+
+		// When
+		first.removeUser(user);
+
+		// Then
+		verify(mediaServer).addUser(user);
+		verify(mediaServer, never()).deleteUser(user);
+		assertThat(pool.getReserved()).isEqualTo(1);
+		assertThatThrownBy(() -> second.addUser(createUser("Pepe")))
+				.isInstanceOf(NotEnoughResourcesException.class);
+
+		second.removeUser(user);
+		verify(mediaServer).deleteUser(user);
+		assertThat(pool.getReserved()).isZero();
+	}
+
+	@Test
+	public void givenUserNotInChat_whenItIsRemoved_thenItsSlotInAnotherChatIsKept() {
+
+		// Given
+		MediaServer mediaServer = mock(MediaServer.class);
+		MediaServerPool pool = new MediaServerPool(MediaServerPool.Placement.LEAST_LOADED)
+				.addServer(mediaServer, 1);
+		User user = createUser("Juan");
+		new Chat("Mi chat", pool).addUser(user);
+
+		// When
+		new Chat("Otro chat", pool).removeUser(user);
+
+		// Then
+		verify(mediaServer, never()).deleteUser(user);
+		assertThat(pool.getReserved()).isEqualTo(1);
+	}
+
+	@Test
+	public void givenSlowAddUser_whenReleasedMeanwhile_thenDeleteUserWaitsForIt() throws Exception {
+
+		// Given
+		CountDownLatch adding = new CountDownLatch(1);
+		CountDownLatch proceed = new CountDownLatch(1);
+		List<String> calls = new CopyOnWriteArrayList<>();
+		MediaServer mediaServer = mock(MediaServer.class);
+		doAnswer(invocation -> {
+			adding.countDown();
+			proceed.await();
+			calls.add("add");
+			return null;
+		}).when(mediaServer).addUser(any());
+		doAnswer(invocation -> calls.add("delete")).when(mediaServer).deleteUser(any());
+		MediaServerPool pool = new MediaServerPool(MediaServerPool.Placement.LEAST_LOADED)
+				.addServer(mediaServer, 1);
+		User user = createUser("Juan");
+		Thread reserving = new Thread(() -> pool.reserve(user));
+		reserving.start();
+		adding.await();
+
+		// When
+		Thread releasing = new Thread(() -> pool.release(user));
+		releasing.start();
+		while (releasing.getState() != Thread.State.BLOCKED && releasing.isAlive()) {
+			Thread.sleep(1);
+		}
+		proceed.countDown();
+		reserving.join();
+		releasing.join();
+
+		// Then
+		assertThat(calls).containsExactly("add", "delete");
+		assertThat(pool.getReserved()).isZero();
+		assertThat(pool.getMediaServer(user)).isNull();
+	}
+
+	@Test
+	public void givenPowerOfTwoChoices_whenManyUsersAreAdded_thenLoadIsBalanced() {
+
+		// Given
+		List<CountingMediaServer> servers = new ArrayList<>();
+		MediaServerPool pool = new MediaServerPool(MediaServerPool.Placement.POWER_OF_TWO_CHOICES);
+		for (int i = 0; i < 8; i++) {
+			CountingMediaServer server = new CountingMediaServer();
+			servers.add(server);
+			pool.addServer(server, 1000);
+		}
+
+		// When
+		for (int i = 0; i < 4000; i++) {
+			pool.reserve(new PlainUser("user" + i));
+		}
+
+		// Then
+		for (CountingMediaServer server : servers) {
+			assertThat(server.users.get()).isBetween(450, 550);
+		}
+	}
+
+	@Test
+	public void givenConcurrentReservations_whenPoolFillsUp_thenNoServerIsOverbooked() throws Exception {
+
+		// Given
+		List<CountingMediaServer> servers = new ArrayList<>();
+		MediaServerPool pool = new MediaServerPool(MediaServerPool.Placement.POWER_OF_TWO_CHOICES);
+		for (int i = 0; i < 4; i++) {
+			CountingMediaServer server = new CountingMediaServer();
+			servers.add(server);
+			pool.addServer(server, 250);
+		}
+
+		// When
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<Integer>> results = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			int thread = t;
+			results.add(executor.submit(() -> {
+				int placed = 0;
+				for (int i = 0; i < 500; i++) {
+					try {
+						pool.reserve(new PlainUser("user" + thread + "-" + i));
+						placed++;
+					} catch (NotEnoughResourcesException e) {
+						// pool is full
+					}
+				}
+				return placed;
+			}));
+		}
+		int placed = 0;
+		for (Future<Integer> result : results) {
+			placed += result.get();
+		}
+		executor.shutdown();
+
+		// Then
+		assertThat(placed).isEqualTo(1000);
+		for (CountingMediaServer server : servers) {
+			assertThat(server.users.get()).isEqualTo(250);
+			assertThat(server.maxUsers.get()).isEqualTo(250);
+		}
+	}
+
+	private static class CountingMediaServer implements MediaServer {
+
+		final AtomicInteger users = new AtomicInteger();
+		final AtomicInteger maxUsers = new AtomicInteger();
+
+		@Override
+		public boolean allowMoreUsers() {
+			return true;
+		}
+
+		@Override
+		public void addUser(User user) {
+			maxUsers.accumulateAndGet(users.incrementAndGet(), Math::max);
+		}
+
+		@Override
+		public void deleteUser(User user) {
+			users.decrementAndGet();
+		}
+	}
+
+	private record PlainUser(String getName) implements User {
+
+		@Override
+		public void onMessage(String chat, String user, String message) {
+		}
+
+		@Override
+		public void newUserInChat(String chat, String user) {
+		}
+
+		@Override
+		public void userExitedFromChat(String chat, String user) {
+		}
+	}
+}
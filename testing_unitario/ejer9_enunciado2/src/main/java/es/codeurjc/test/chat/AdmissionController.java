@@ -0,0 +1,74 @@
+package es.codeurjc.test.chat;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded number of admissions. Callers wait in arrival order (the
+// semaphore is fair) until a permit is released or their timeout expires,
+// and the time spent waiting is recorded.
+public class AdmissionController {
+
+	private final Semaphore permits;
+
+	private final LongAdder admitted = new LongAdder();
+	private final LongAdder timedOut = new LongAdder();
+	private final LongAdder totalLatencyNanos = new LongAdder();
+	private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+	public AdmissionController(int capacity) {
+		this.permits = new Semaphore(capacity, true);
+	}
+
+	// true if admitted within the timeout, false if it expired
+	public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+		long start = System.nanoTime();
+		if (!permits.tryAcquire(timeout, unit)) {
+			timedOut.increment();
+			return false;
+		}
+		long latency = System.nanoTime() - start;
+		admitted.increment();
+		totalLatencyNanos.add(latency);
+		maxLatencyNanos.accumulateAndGet(latency, Math::max);
+		return true;
+	}
+
+	public void release() {
+		permits.release();
+	}
+
+	public int getAvailable() {
+		return permits.availablePermits();
+	}
+
+	// callers currently blocked waiting for a permit, an estimate
+	public int getWaiting() {
+		return permits.getQueueLength();
+	}
+
+	public long getAdmitted() {
+		return admitted.sum();
+	}
+
+	public long getTimedOut() {
+		return timedOut.sum();
+	}
+
+	public long getAverageLatency(TimeUnit unit) {
+		long count = getAdmitted();
+		return count == 0 ? 0 : unit.convert(totalLatencyNanos.sum() / count, TimeUnit.NANOSECONDS);
+	}
+
+	public long getMaxLatency(TimeUnit unit) {
+		return unit.convert(maxLatencyNanos.get(), TimeUnit.NANOSECONDS);
+	}
+
+	public String toString() {
+		return "available=" + getAvailable() + " waiting=" + getWaiting() + " admitted="
+				+ getAdmitted() + " timedOut=" + getTimedOut() + " avgLatencyUs="
+				+ getAverageLatency(TimeUnit.MICROSECONDS) + " maxLatencyUs="
+				+ getMaxLatency(TimeUnit.MICROSECONDS);
+	}
+}
@@ -1,20 +1,81 @@
 package es.codeurjc.test.chat;
 
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Users are kept in a concurrent map, so joining, leaving and broadcasting
+// can happen at the same time from different threads. Iteration is weakly
+// consistent: a broadcast sees every user that was in the chat when it
+// started and may or may not see users joining concurrently.
+//
+// When the ChatManager has a PresenceBatcher, joins and leaves are
+// announced to the members in batched roster deltas instead of one
+// callback per event.
+//
+// The last messages are kept in a bounded history that is replayed to every
+// user who joins, without any chat-wide lock. Each message gets a sequence
+// number from the history. A joiner is published first, and broadcasts that
+// reach it before its replay is over are buffered in its member entry. The
+// history is read after publishing: what it holds is replayed, and from
+// then on the member takes only the sequences the replay did not cover, so
+// every message is delivered once whichever way it arrives. A slow
+// recipient only delays the broadcast it is part of.
 public class Chat {
 
-	private String name;
-	private Map<String, User> users = new HashMap<>();
+	private static final Logger log = LoggerFactory.getLogger(Chat.class);
+
+	static final int DEFAULT_HISTORY_SIZE = 50;
+
+	private final String name;
+	private final ConcurrentMap<String, Member> members = new ConcurrentHashMap<>();
+	private final Collection<User> users = new AbstractCollection<User>() {
+
+		@Override
+		public Iterator<User> iterator() {
+			Iterator<Member> iterator = members.values().iterator();
+			return new Iterator<User>() {
+
+				@Override
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+
+				@Override
+				public User next() {
+					return iterator.next().user;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return members.size();
+		}
+	};
+	private final MessageHistory history;
+	private final PresenceBatcher.Pending presence = new PresenceBatcher.Pending();
 
-	private ChatManager chatManager;
+	private final ChatManager chatManager;
 
 	public Chat(ChatManager chatManager, String name) {
+		this(chatManager, name, DEFAULT_HISTORY_SIZE);
+	}
+
+	// historySize is the number of messages replayed on join, 0 disables it
+	public Chat(ChatManager chatManager, String name, int historySize) {
 		this.chatManager = chatManager;
 		this.name = name;
+		this.history = new MessageHistory(historySize);
 	}
 
 	public String getName() {
@@ -22,36 +83,143 @@ public class Chat {
 	}
 
 	public void addUser(User user) {
-		users.put(user.getName(), user);
-		for(User u : users.values()){
-			if (u != user) {
-				u.newUserInChat(this, user);
+		Member member = new Member(user);
+		members.put(user.getName(), member);
+		// read after publishing: a message this misses is broadcast to the
+		// member, and one it holds is not taken again from a broadcast
+		MessageHistory.Snapshot snapshot = history.snapshot();
+		try {
+			for (ChatMessage message : snapshot.messages) {
+				user.newMessage(message);
+			}
+		} finally {
+			member.goLive(snapshot.end, snapshot.pending);
+		}
+		PresenceBatcher batcher = chatManager.getPresenceBatcher();
+		if (batcher != null) {
+			batcher.joined(this, presence, user);
+		} else {
+			for(Member m : members.values()){
+				if (m.user != user) {
+					m.user.newUserInChat(this, user);
+				}
 			}
 		}
 	}
 
 	public void removeUser(User user) {
-		users.remove(user.getName());
-		for(User u : users.values()){
-			u.userExitedFromChat(this, user);
+		// only the registered instance is removed, a newer session with the
+		// same name is left in place and nobody is told it has left
+		Member member = members.get(user.getName());
+		if (member == null || member.user != user || !members.remove(user.getName(), member)) {
+			return;
+		}
+		PresenceBatcher batcher = chatManager.getPresenceBatcher();
+		if (batcher != null) {
+			batcher.left(this, presence, user);
+		} else {
+			for(Member m : members.values()){
+				m.user.userExitedFromChat(this, user);
+			}
 		}
 	}
 
 	public Collection<User> getUsers() {
-		return Collections.unmodifiableCollection(users.values());
+		return users;
 	}
 
 	public User getUser(String name) {
-		return users.get(name);
+		Member member = members.get(name);
+		return member != null ? member.user : null;
 	}
 
 	public void sendMessage(User user, String message) {
-		for(User u : users.values()){
-			u.newMessage(this, user, message);
+		ChatMessage chatMessage = new ChatMessage(this, user, message);
+		journal(chatMessage);
+		history.add(chatMessage);
+		for(Member m : members.values()){
+			m.deliver(chatMessage);
+		}
+	}
+
+	private void journal(ChatMessage chatMessage) {
+		MessageJournal journal = chatManager.getJournal();
+		if (journal != null) {
+			try {
+				journal.append(chatMessage);
+			} catch (IOException | RuntimeException e) {
+				// the message is still delivered, it is only missing from the journal
+				log.warn("Message of chat '{}' was not journaled", name, e);
+			}
 		}
 	}
 
+	public MessageHistory getHistory() {
+		return history;
+	}
+
 	public void close() {
 		this.chatManager.closeChat(this);
 	}
+
+	// A user in the chat. Until its history replay is over, broadcasts are
+	// buffered; after it, only the sequences the replay did not cover are
+	// delivered: those from replayedEnd on, and the ones that were claimed
+	// but not yet written when the history was read.
+	private static class Member {
+
+		final User user;
+
+		private volatile boolean live;
+		private long replayedEnd;
+		private long[] notReplayed;
+		// guarded by this until live
+		private List<ChatMessage> buffered = new ArrayList<>();
+
+		Member(User user) {
+			this.user = user;
+		}
+
+		void deliver(ChatMessage message) {
+			if (!live) {
+				synchronized (this) {
+					if (!live) {
+						buffered.add(message);
+						return;
+					}
+				}
+			}
+			if (notReplayed(message)) {
+				user.newMessage(message);
+			}
+		}
+
+		// hands the buffered broadcasts over and switches to live delivery
+		void goLive(long end, long[] pending) {
+			replayedEnd = end;
+			notReplayed = pending;
+			for (;;) {
+				List<ChatMessage> drained;
+				synchronized (this) {
+					if (buffered.isEmpty()) {
+						buffered = null;
+						live = true;
+						return;
+					}
+					drained = buffered;
+					buffered = new ArrayList<>();
+				}
+				for (ChatMessage message : drained) {
+					if (notReplayed(message)) {
+						user.newMessage(message);
+					}
+				}
+			}
+		}
+
+		private boolean notReplayed(ChatMessage message) {
+			long sequence = message.getSequence();
+			return sequence >= replayedEnd || Arrays.binarySearch(notReplayed, sequence) >= 0;
+		}
+	}
 }
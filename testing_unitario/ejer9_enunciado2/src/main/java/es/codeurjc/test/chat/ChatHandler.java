@@ -1,27 +1,102 @@
 package es.codeurjc.test.chat;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
 
 public class ChatHandler extends TextWebSocketHandler {
 
-	private ObjectMapper mapper = new ObjectMapper();
+	private static final Logger log = LoggerFactory.getLogger(ChatHandler.class);
+
+	private JsonFactory jsonFactory = new JsonFactory();
+
+	@Value("${chat.history.size:50}")
+	private int historySize = 50;
+
+	// empty keeps messages in memory only
+	@Value("${chat.journal.dir:}")
+	private String journalDir = "";
+
+	// older segments are deleted beyond this size or age, 0 keeps them all
+	@Value("${chat.journal.retention-bytes:1073741824}")
+	private long journalRetentionBytes = 1L << 30;
+
+	@Value("${chat.journal.retention-ms:0}")
+	private long journalRetentionMillis = 0;
+
+	// joins and leaves announced together within this window, 0 disables it
+	@Value("${chat.presence.window-ms:100}")
+	private long presenceWindowMillis = 100;
+
+	private ChatManager chatManager;
+
+	private PresenceBatcher presenceBatcher;
 
-	private ChatManager chatManager = new ChatManager(10);
+	private MessageJournal journal;
 
 	private String[] colors = { "007AFF", "FF7000", "15E25F", "CFC700", "CFC700",
 			"CF1100", "CF00BE", "F00" };
 	
 	private volatile int colorIndex = 0;
 
+	@Value("${chat.outbound.capacity:256}")
+	private int outboundCapacity = 256;
+
+	@Value("${chat.outbound.overflow-policy:DROP_OLDEST}")
+	private OutboundQueue.OverflowPolicy overflowPolicy = OutboundQueue.OverflowPolicy.DROP_OLDEST;
+
+	// writes block on the socket, so every session being drained gets its own
+	// thread and idle threads are reclaimed
+	private ExecutorService writer = Executors.newCachedThreadPool(new WriterThreadFactory());
+
+	private OutboundMetrics outboundMetrics = new OutboundMetrics();
+
+	// created after the properties are injected
+	@PostConstruct
+	public void init() throws IOException {
+		chatManager = new ChatManager(10, ChatManager.DEFAULT_SHARDS, historySize);
+		if (presenceWindowMillis > 0) {
+			presenceBatcher = new PresenceBatcher(presenceWindowMillis);
+			chatManager.setPresenceBatcher(presenceBatcher);
+		}
+		if (!journalDir.isEmpty()) {
+			// 64 MB segments, fsync every 256 messages or 100 ms
+			journal = new MessageJournal(Paths.get(journalDir), 64 << 20, 64, 256, 100,
+					journalRetentionBytes, journalRetentionMillis);
+			chatManager.setJournal(journal);
+		}
+	}
+
+	@PreDestroy
+	public void destroy() throws IOException {
+		// queued messages of open sessions are still written, new ones are discarded
+		writer.shutdown();
+		if (presenceBatcher != null) {
+			presenceBatcher.close();
+		}
+		if (journal != null) {
+			journal.close();
+		}
+	}
+
 	@Override
 	public void afterConnectionEstablished(WebSocketSession session) throws Exception {
 
@@ -30,37 +105,40 @@ public class ChatHandler extends TextWebSocketHandler {
 	@Override
 	protected void handleTextMessage(WebSocketSession session, TextMessage message)
 			throws Exception {
-		System.out.println("Message received: " + message.getPayload());
-
 		String msg = message.getPayload();
+		log.debug("Message received: {}", msg);
 
-		JsonNode jsonMsg = mapper.readTree(msg);
-		if (jsonMsg.hasNonNull("chat")) {
-			newUser(session, jsonMsg);
+		ChatRequest request = ChatRequest.parse(jsonFactory, msg);
+		if (request.isJoin()) {
+			newUser(session, request);
 		} else {
-			newMessage(session, jsonMsg);
+			newMessage(session, request);
 		}
 	}
 
-	private void newMessage(WebSocketSession session, JsonNode jsonMsg) {
+	private void newMessage(WebSocketSession session, ChatRequest request) {
 		User user = (User) session.getAttributes().get("user");
 		Chat chat = (Chat) session.getAttributes().get("chat");
 
-		chat.sendMessage(user, jsonMsg.get("message").asText());
+		chat.sendMessage(user, request.getMessage());
 	}
 
-	private void newUser(WebSocketSession session, JsonNode jsonMsg)
+	private void newUser(WebSocketSession session, ChatRequest request)
 			throws InterruptedException, TimeoutException {
 		
-		String chatName = jsonMsg.get("chat").asText();
-		String userName = jsonMsg.get("user").asText();
+		String chatName = request.getChat();
+		String userName = request.getUser();
 
-		WebSocketUser user = new WebSocketUser(session, userName, colors[colorIndex]);
+		OutboundQueue outbound = new OutboundQueue(session, outboundCapacity, overflowPolicy,
+				writer, outboundMetrics);
+		WebSocketUser user = new WebSocketUser(session, userName, colors[colorIndex], outbound);
 		colorIndex = (colorIndex+1) % colors.length;
-		
-		session.getAttributes().put("user", user);	
 
+		// every client is told about new and closed chats, as before topics
 		chatManager.newUser(user);
+		// only a registered user is unregistered when the connection closes
+		session.getAttributes().put("user", user);
+
 		Chat chat = chatManager.newChat(chatName, 5, TimeUnit.SECONDS);
 		session.getAttributes().put("chat", chat);
 
@@ -73,7 +151,40 @@ public class ChatHandler extends TextWebSocketHandler {
 
 		User user = (User) session.getAttributes().get("user");
 		Chat chat = (Chat) session.getAttributes().get("chat");
+		if (user == null) {
+			// never joined, or the join was refused
+			return;
+		}
 
-		chat.removeUser(user);
+		try {
+			if (chat != null) {
+				chat.removeUser(user);
+			}
+		} finally {
+			chatManager.removeUser(user);
+			if (user instanceof WebSocketUser) {
+				((WebSocketUser) user).getOutboundQueue().close();
+			}
+		}
+	}
+
+	ChatManager getChatManager() {
+		return chatManager;
+	}
+
+	public OutboundMetrics getOutboundMetrics() {
+		return outboundMetrics;
+	}
+
+	private static class WriterThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "chat-writer-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
 	}
 }
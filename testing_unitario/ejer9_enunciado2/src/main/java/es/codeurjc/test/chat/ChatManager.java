@@ -1,80 +1,248 @@
 package es.codeurjc.test.chat;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+// Safe to use from many WebSocket threads at once. Users and chats live in
+// hash-partitioned shards of concurrent maps, and when all chats are in use
+// newChat waits for closeChat to free capacity through a fair admission
+// controller.
+//
+// Room events are delivered by topic instead of to every registered user:
+// newChat notifies the users subscribed to all chats and those subscribed to
+// that chat name; closeChat also notifies the members of the chat. The cost
+// of a room event depends on its audience, not on the number of users.
 public class ChatManager {
 
-	private Map<String, Chat> chats = new HashMap<>();
-	private Map<String, User> users = new HashMap<>();
-	private int maxChats;
+	static final int DEFAULT_SHARDS = 16;
+
+	private final Shard[] shards;
+	private final int shardMask;
+	private final Set<User> allChatsSubscribers = ConcurrentHashMap.newKeySet();
+	private final AdmissionController admission;
+	private final int historySize;
+	private volatile MessageJournal journal;
+	private volatile PresenceBatcher presenceBatcher;
 
 	public ChatManager(int maxChats) {
-		this.maxChats = maxChats;
+		this(maxChats, DEFAULT_SHARDS);
+	}
+
+	public ChatManager(int maxChats, int shards) {
+		this(maxChats, shards, Chat.DEFAULT_HISTORY_SIZE);
+	}
+
+	// shards is rounded up to a power of two, historySize is the number of
+	// recent messages each chat keeps for users who join later
+	public ChatManager(int maxChats, int shards, int historySize) {
+		if (shards < 1) {
+			throw new IllegalArgumentException("Shards must be positive: " + shards);
+		}
+		int count = Integer.highestOneBit(shards - 1) << 1;
+		this.shards = new Shard[Math.max(1, count)];
+		for (int i = 0; i < this.shards.length; i++) {
+			this.shards[i] = new Shard();
+		}
+		this.shardMask = this.shards.length - 1;
+		this.admission = new AdmissionController(maxChats);
+		this.historySize = historySize;
 	}
 
+	// registers the user and subscribes it to the events of all chats
 	public void newUser(User user) {
-		
-		if(users.containsKey(user.getName())){
+		newUser(user, true);
+	}
+
+	public void newUser(User user, boolean subscribeToAllChats) {
+
+		if (shard(user.getName()).users.putIfAbsent(user.getName(), user) != null) {
 			throw new IllegalArgumentException("There is already a user with name \'"
 					+ user.getName() + "\'");
-		} else {
-			users.put(user.getName(), user);
 		}
+		if (subscribeToAllChats) {
+			allChatsSubscribers.add(user);
+		}
+	}
+
+	// unregisters the user and drops all its subscriptions
+	public void removeUser(User user) {
+		Shard userShard = shard(user.getName());
+		if (!userShard.users.remove(user.getName(), user)) {
+			return;
+		}
+		allChatsSubscribers.remove(user);
+		Set<String> topics = userShard.topics.remove(user.getName());
+		if (topics != null) {
+			for (String chatName : topics) {
+				removeSubscriber(chatName, user);
+			}
+		}
+	}
+
+	// user will be notified when a chat with this name is created or closed
+	public void subscribe(User user, String chatName) {
+		shard(chatName).subscribers.compute(chatName, (name, users) -> {
+			Set<User> result = users != null ? users : ConcurrentHashMap.newKeySet();
+			result.add(user);
+			return result;
+		});
+		shard(user.getName()).topics.compute(user.getName(), (name, topics) -> {
+			Set<String> result = topics != null ? topics : ConcurrentHashMap.newKeySet();
+			result.add(chatName);
+			return result;
+		});
+	}
+
+	public void unsubscribe(User user, String chatName) {
+		removeSubscriber(chatName, user);
+		shard(user.getName()).topics.computeIfPresent(user.getName(), (name, topics) -> {
+			topics.remove(chatName);
+			return topics.isEmpty() ? null : topics;
+		});
+	}
+
+	private void removeSubscriber(String chatName, User user) {
+		shard(chatName).subscribers.computeIfPresent(chatName, (name, users) -> {
+			users.remove(user);
+			return users.isEmpty() ? null : users;
+		});
 	}
 
 	public Chat newChat(String name, long timeout, TimeUnit unit) throws InterruptedException,
 			TimeoutException {
 
-		if (chats.size() == maxChats) {
+		ConcurrentMap<String, Chat> chats = shard(name).chats;
+		Chat chat = chats.get(name);
+		if (chat != null) {
+			return chat;
+		}
+
+		if (!admission.tryAcquire(timeout, unit)) {
+			// a concurrent caller may have created it meanwhile
+			chat = chats.get(name);
+			if (chat != null) {
+				return chat;
+			}
 			throw new TimeoutException("There is no enought capacity to create a new chat");
 		}
 
-		if(chats.containsKey(name)){
-			return chats.get(name);
-		} else {
-			Chat newChat = new Chat(this, name);
-			chats.put(name, newChat);
-			
-			for(User user : users.values()){
+		Chat newChat = new Chat(this, name, historySize);
+		chat = chats.putIfAbsent(name, newChat);
+		if (chat != null) {
+			admission.release();
+			return chat;
+		}
+
+		for (User user : allChatsSubscribers) {
+			user.newChat(newChat);
+		}
+		for (User user : subscribers(name)) {
+			if (!allChatsSubscribers.contains(user)) {
 				user.newChat(newChat);
 			}
-
-			return newChat;
 		}
+
+		return newChat;
 	}
 
 	public void closeChat(Chat chat) {
-		Chat removedChat = chats.remove(chat.getName());
-		if (removedChat == null) {
+		// a stale Chat never removes a newer chat created with the same name
+		if (!shard(chat.getName()).chats.remove(chat.getName(), chat)) {
 			throw new IllegalArgumentException("Trying to remove an unknown chat with name \'"
 					+ chat.getName() + "\'");
 		}
+		admission.release();
 
-		for(User user : users.values()){
-			user.chatClosed(removedChat);
+		Set<User> topic = subscribers(chat.getName());
+		for (User user : allChatsSubscribers) {
+			user.chatClosed(chat);
 		}
+		for (User user : topic) {
+			if (!allChatsSubscribers.contains(user)) {
+				user.chatClosed(chat);
+			}
+		}
+		for (User user : chat.getUsers()) {
+			if (!allChatsSubscribers.contains(user) && !topic.contains(user)) {
+				user.chatClosed(chat);
+			}
+		}
+	}
+
+	private Set<User> subscribers(String chatName) {
+		Set<User> users = shard(chatName).subscribers.get(chatName);
+		return users != null ? users : Collections.emptySet();
+	}
+
+	// when set, every message sent in any chat is appended to the journal
+	public void setJournal(MessageJournal journal) {
+		this.journal = journal;
+	}
+
+	public MessageJournal getJournal() {
+		return journal;
+	}
+
+	// when set, joins and leaves of every chat are coalesced by the batcher
+	public void setPresenceBatcher(PresenceBatcher presenceBatcher) {
+		this.presenceBatcher = presenceBatcher;
+	}
+
+	public PresenceBatcher getPresenceBatcher() {
+		return presenceBatcher;
+	}
+
+	// waiting callers, admissions and admission latency of newChat
+	public AdmissionController getAdmission() {
+		return admission;
 	}
 
+	// snapshot of the chats of all shards
 	public Collection<Chat> getChats() {
-		return Collections.unmodifiableCollection(chats.values());
+		List<Chat> chats = new ArrayList<>();
+		for (Shard shard : shards) {
+			chats.addAll(shard.chats.values());
+		}
+		return Collections.unmodifiableCollection(chats);
 	}
 
 	public Chat getChat(String chatName) {
-		return chats.get(chatName);
+		return shard(chatName).chats.get(chatName);
 	}
 
+	// snapshot of the users of all shards
 	public Collection<User> getUsers() {
-		return Collections.unmodifiableCollection(users.values());
+		List<User> users = new ArrayList<>();
+		for (Shard shard : shards) {
+			users.addAll(shard.users.values());
+		}
+		return Collections.unmodifiableCollection(users);
 	}
 
 	public User getUser(String userName) {
-		return users.get(userName);
+		return shard(userName).users.get(userName);
 	}
 
 	public void close() {}
+
+	private Shard shard(String key) {
+		int hash = key.hashCode();
+		return shards[(hash ^ (hash >>> 16)) & shardMask];
+	}
+
+	// users and chats are placed by their own name, subscribers by chat name
+	// and the topics of a user by user name
+	private static class Shard {
+		final ConcurrentMap<String, User> users = new ConcurrentHashMap<>();
+		final ConcurrentMap<String, Chat> chats = new ConcurrentHashMap<>();
+		final ConcurrentMap<String, Set<User>> subscribers = new ConcurrentHashMap<>();
+		final ConcurrentMap<String, Set<String>> topics = new ConcurrentHashMap<>();
+	}
 }
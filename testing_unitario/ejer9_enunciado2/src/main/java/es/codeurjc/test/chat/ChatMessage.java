@@ -0,0 +1,64 @@
+package es.codeurjc.test.chat;
+
+import org.springframework.web.socket.TextMessage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+// Message broadcast to every user of a chat. The JSON frame is built the
+// first time a recipient asks for it and then shared by all of them, so a
+// broadcast costs one serialization whatever the size of the room.
+public class ChatMessage {
+
+	private static ObjectMapper mapper = new ObjectMapper();
+
+	private final Chat chat;
+	private final User user;
+	private final String message;
+
+	// set by the chat's history before the message is delivered
+	private long sequence = -1;
+
+	// benign race: concurrent first calls build equal frames and one wins
+	private volatile TextMessage textMessage;
+
+	public ChatMessage(Chat chat, User user, String message) {
+		this.chat = chat;
+		this.user = user;
+		this.message = message;
+	}
+
+	public Chat getChat() {
+		return chat;
+	}
+
+	public User getUser() {
+		return user;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	// position of the message in its chat, -1 before it is sent
+	public long getSequence() {
+		return sequence;
+	}
+
+	void setSequence(long sequence) {
+		this.sequence = sequence;
+	}
+
+	public TextMessage getTextMessage() {
+		TextMessage result = textMessage;
+		if (result == null) {
+			ObjectNode msg = mapper.createObjectNode();
+			msg.put("name", user.getName());
+			msg.put("color", user.getColor());
+			msg.put("message", message);
+			result = new TextMessage(msg.toString());
+			textMessage = result;
+		}
+		return result;
+	}
+}
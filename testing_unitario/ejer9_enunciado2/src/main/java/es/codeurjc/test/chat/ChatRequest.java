@@ -0,0 +1,74 @@
+package es.codeurjc.test.chat;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+// Message sent by the browser: {"chat": ..., "user": ...} to join a chat or
+// {"message": ...} to talk in it. Read with a streaming parser that only
+// keeps these three fields, so no JsonNode tree is built per message. A join
+// without a user, or any other request without a message, is rejected.
+public class ChatRequest {
+
+	private String chat;
+	private String user;
+	private String message;
+
+	public static ChatRequest parse(JsonFactory factory, String json) throws IOException {
+		ChatRequest request = new ChatRequest();
+		try (JsonParser parser = factory.createParser(json)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new JsonParseException(parser, "Expected a JSON object");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				String value = readValue(parser);
+				switch (field) {
+				case "chat" -> request.chat = value;
+				case "user" -> request.user = value;
+				case "message" -> request.message = value;
+				default -> { }
+				}
+			}
+			// nothing downstream expects a null name or text
+			if (request.chat != null && request.user == null) {
+				throw new JsonParseException(parser, "Join request without \"user\"");
+			}
+			if (request.chat == null && request.message == null) {
+				throw new JsonParseException(parser, "Request without \"chat\" or \"message\"");
+			}
+		}
+		return request;
+	}
+
+	// text of a scalar as JsonNode.asText() gives it, "" for objects and
+	// arrays, whose content is skipped, and null for JSON null
+	private static String readValue(JsonParser parser) throws IOException {
+		JsonToken token = parser.nextToken();
+		if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+			parser.skipChildren();
+			return "";
+		}
+		return token == JsonToken.VALUE_NULL ? null : parser.getText();
+	}
+
+	// true for a join request, as jsonMsg.hasNonNull("chat") before
+	public boolean isJoin() {
+		return chat != null;
+	}
+
+	public String getChat() {
+		return chat;
+	}
+
+	public String getUser() {
+		return user;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+}
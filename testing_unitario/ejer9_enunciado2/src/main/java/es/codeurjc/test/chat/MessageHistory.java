@@ -0,0 +1,113 @@
+package es.codeurjc.test.chat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Last messages of a chat in a fixed ring of slots. Writers claim a
+// sequence number with one atomic increment and publish into its slot with
+// a compare-and-set; getMessages() takes no lock either, and skips slots
+// that are not published yet or were already overwritten by a newer
+// message. Memory is bounded by the capacity, whatever the number of
+// messages sent.
+public class MessageHistory {
+
+	private final AtomicReferenceArray<Entry> slots;
+	private final AtomicLong next = new AtomicLong();
+
+	public MessageHistory(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("History capacity must not be negative: " + capacity);
+		}
+		this.slots = new AtomicReferenceArray<>(capacity);
+	}
+
+	public int getCapacity() {
+		return slots.length();
+	}
+
+	// gives the message the next sequence number of the chat and keeps it
+	public void add(ChatMessage message) {
+		long sequence = next.getAndIncrement();
+		message.setSequence(sequence);
+		if (slots.length() == 0) {
+			return;
+		}
+		Entry entry = new Entry(sequence, message);
+		int index = index(sequence);
+		// a writer stalled between its increment and its write must not
+		// overwrite a newer message that already took the slot
+		for (;;) {
+			Entry current = slots.get(index);
+			if (current != null && current.sequence > sequence) {
+				return;
+			}
+			if (slots.compareAndSet(index, current, entry)) {
+				return;
+			}
+		}
+	}
+
+	// messages still in the ring, oldest first
+	public List<ChatMessage> getMessages() {
+		return snapshot().messages;
+	}
+
+	Snapshot snapshot() {
+		long end = next.get();
+		long start = Math.max(0, end - slots.length());
+		List<ChatMessage> messages = new ArrayList<>((int) (end - start));
+		long[] pending = null;
+		int pendingCount = 0;
+		for (long sequence = start; sequence < end; sequence++) {
+			Entry entry = slots.get(index(sequence));
+			if (entry != null && entry.sequence == sequence) {
+				messages.add(entry.message);
+			} else if (entry == null || entry.sequence < sequence) {
+				// claimed but not written yet
+				if (pending == null) {
+					pending = new long[4];
+				} else if (pendingCount == pending.length) {
+					pending = Arrays.copyOf(pending, pendingCount * 2);
+				}
+				pending[pendingCount++] = sequence;
+			}
+		}
+		return new Snapshot(messages, end,
+				pending == null ? NONE : Arrays.copyOf(pending, pendingCount));
+	}
+
+	private int index(long sequence) {
+		return (int) (sequence % slots.length());
+	}
+
+	private static final long[] NONE = new long[0];
+
+	// Messages in the ring at one point, with the sequence that follows them
+	// and the sequences below it that were claimed but not yet written
+	static class Snapshot {
+
+		final List<ChatMessage> messages;
+		final long end;
+		final long[] pending;
+
+		Snapshot(List<ChatMessage> messages, long end, long[] pending) {
+			this.messages = messages;
+			this.end = end;
+			this.pending = pending;
+		}
+	}
+
+	private static class Entry {
+
+		final long sequence;
+		final ChatMessage message;
+
+		Entry(long sequence, ChatMessage message) {
+			this.sequence = sequence;
+			this.message = message;
+		}
+	}
+}
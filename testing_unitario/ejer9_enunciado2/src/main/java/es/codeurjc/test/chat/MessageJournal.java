@@ -0,0 +1,567 @@
+package es.codeurjc.test.chat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Append-only log of chat messages in a directory of memory mapped segment
+// files named after the offset of their first record. Appending copies the
+// record into the mapping of the active segment under a short lock, so
+// sendMessage never waits for the disk. A background thread forces the
+// mappings to storage every flushIntervalMillis, or sooner once flushEvery
+// records are pending.
+//
+// The same thread keeps the next segment created and mapped ahead of time in
+// a spare file, so a full segment is replaced by swapping in the spare; the
+// spare is renamed after its first offset, the rolled segment forced and a
+// new spare mapped, all off the append path. Only when appends outrun the
+// thread is a segment mapped while holding the lock. A spare left by a crash
+// before its rename is picked up on open, under the offset of its first
+// record.
+//
+// Rolled segments are deleted oldest first once the journal exceeds
+// retentionBytes or their last message is older than retentionMillis (0
+// disables either limit). Their files are closed and deleted at once; the
+// mapping itself is released when the buffer is garbage collected, as a
+// replay may still be reading it.
+//
+// Every indexInterval records of a segment, the offset and position of the
+// record are added to a sparse in-memory index, rebuilt on open by walking
+// the record headers, so replay from any offset scans at most
+// indexInterval records before reaching it.
+//
+// Record: int body length, int CRC32 of the body, then the body: long
+// offset, long timestamp and the chat, user and message as int length +
+// UTF-8 bytes. The length is written last, so a zero length marks the end
+// of the data, and a record whose CRC does not match (torn by a crash) ends
+// the log on open, as does a gap in the offsets between two segments.
+public class MessageJournal implements AutoCloseable {
+
+	// Receives the records of replay(), in offset order
+	public interface Visitor {
+		void visit(long offset, long timestamp, String chat, String user, String message);
+	}
+
+	private static final Logger log = LoggerFactory.getLogger(MessageJournal.class);
+
+	static final int HEADER_BYTES = 8;
+	private static final String SUFFIX = ".log";
+	static final String SPARE = "next.spare";
+
+	private final Path directory;
+	private final int segmentSize;
+	private final int indexInterval;
+	private final int flushEvery;
+	private final long retentionBytes;
+	private final long retentionMillis;
+
+	// guarded by this
+	private final TreeMap<Long, Segment> segments = new TreeMap<>();
+	private final List<Segment> unforced = new ArrayList<>();
+	private final ScheduledExecutorService flusher;
+	private final CRC32 crc = new CRC32();
+	private final Object flushLock = new Object();
+
+	private Segment active;
+	private Segment spare;
+	private long nextOffset;
+	private int pendingFlush;
+	private long blockingRolls;
+	private volatile long durableOffset;
+	private boolean closed;
+
+	public MessageJournal(Path directory, int segmentSize, int indexInterval, int flushEvery,
+			long flushIntervalMillis) throws IOException {
+		this(directory, segmentSize, indexInterval, flushEvery, flushIntervalMillis, 0, 0);
+	}
+
+	public MessageJournal(Path directory, int segmentSize, int indexInterval, int flushEvery,
+			long flushIntervalMillis, long retentionBytes, long retentionMillis) throws IOException {
+		if (segmentSize <= HEADER_BYTES || indexInterval < 1 || flushEvery < 1
+				|| retentionBytes < 0 || retentionMillis < 0) {
+			throw new IllegalArgumentException("Invalid journal configuration");
+		}
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.indexInterval = indexInterval;
+		this.flushEvery = flushEvery;
+		this.retentionBytes = retentionBytes;
+		this.retentionMillis = retentionMillis;
+		Files.createDirectories(directory);
+		recover();
+		this.durableOffset = nextOffset;
+		this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "chat-journal-flusher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		flusher.execute(this::prepareSpareQuietly);
+		flusher.scheduleWithFixedDelay(this::maintain, flushIntervalMillis,
+				flushIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	// appends the message and returns its offset
+	public long append(ChatMessage message) throws IOException {
+		return append(System.currentTimeMillis(), message.getChat().getName(),
+				message.getUser().getName(), message.getMessage());
+	}
+
+	public long append(long timestamp, String chat, String user, String message)
+			throws IOException {
+		byte[] chatBytes = chat.getBytes(StandardCharsets.UTF_8);
+		byte[] userBytes = user.getBytes(StandardCharsets.UTF_8);
+		byte[] messageBytes = message.getBytes(StandardCharsets.UTF_8);
+		int bodyLength = 16 + 12 + chatBytes.length + userBytes.length + messageBytes.length;
+		if (HEADER_BYTES + bodyLength > segmentSize) {
+			throw new IllegalArgumentException("Message of " + bodyLength
+					+ " bytes does not fit in a segment of " + segmentSize);
+		}
+		boolean flushNow;
+		long offset;
+		synchronized (this) {
+			if (closed) {
+				throw new IOException("Journal " + directory + " is closed");
+			}
+			if (active.position + HEADER_BYTES + bodyLength > segmentSize) {
+				roll();
+			}
+			offset = nextOffset++;
+			ByteBuffer buffer = active.buffer;
+			int start = active.position;
+			buffer.position(start + HEADER_BYTES);
+			buffer.putLong(offset);
+			buffer.putLong(timestamp);
+			putBytes(buffer, chatBytes);
+			putBytes(buffer, userBytes);
+			putBytes(buffer, messageBytes);
+			crc.reset();
+			crc.update(buffer.duplicate().position(start + HEADER_BYTES).limit(buffer.position()));
+			buffer.putInt(start + 4, (int) crc.getValue());
+			buffer.putInt(start, bodyLength);
+			active.append(offset, start, indexInterval);
+			active.position = buffer.position();
+			active.lastTimestamp = timestamp;
+			flushNow = ++pendingFlush >= flushEvery;
+			if (flushNow) {
+				pendingFlush = 0;
+			}
+		}
+		if (flushNow) {
+			try {
+				flusher.execute(this::flushQuietly);
+			} catch (RejectedExecutionException e) {
+				// closed meanwhile, close() flushes what was appended
+			}
+		}
+		return offset;
+	}
+
+	// forces every appended record to storage
+	public void flush() throws IOException {
+		// one flush at a time, so durableOffset never claims a segment that
+		// another flush is still forcing
+		synchronized (flushLock) {
+			List<Segment> rolled;
+			Segment segment;
+			long end;
+			synchronized (this) {
+				rolled = new ArrayList<>(unforced);
+				unforced.clear();
+				segment = active;
+				end = nextOffset;
+				pendingFlush = 0;
+			}
+			for (Segment previous : rolled) {
+				previous.buffer.force();
+			}
+			segment.buffer.force();
+			durableOffset = end;
+		}
+	}
+
+	// visits the records from fromOffset (inclusive) to the last appended one
+	public void replay(long fromOffset, Visitor visitor) throws IOException {
+		List<Segment> toRead;
+		int startPosition;
+		Segment last;
+		int lastEnd;
+		synchronized (this) {
+			Long first = segments.floorKey(fromOffset);
+			toRead = new ArrayList<>(segments.tailMap(first != null ? first : 0L, true).values());
+			startPosition = toRead.get(0).floorPosition(fromOffset);
+			last = active;
+			lastEnd = active.position;
+		}
+		for (int i = 0; i < toRead.size(); i++) {
+			Segment segment = toRead.get(i);
+			int end = segment == last ? lastEnd : segment.end;
+			ByteBuffer buffer = segment.buffer.duplicate();
+			int position = i == 0 ? startPosition : 0;
+			while (position < end) {
+				int bodyLength = buffer.getInt(position);
+				buffer.position(position + HEADER_BYTES);
+				long offset = buffer.getLong();
+				long timestamp = buffer.getLong();
+				if (offset >= fromOffset) {
+					String chat = getString(buffer);
+					String user = getString(buffer);
+					String message = getString(buffer);
+					visitor.visit(offset, timestamp, chat, user, message);
+				}
+				position += HEADER_BYTES + bodyLength;
+			}
+		}
+	}
+
+	// offset the next appended message will get
+	public synchronized long getNextOffset() {
+		return nextOffset;
+	}
+
+	// every record below this offset has been forced to storage
+	public long getDurableOffset() {
+		return durableOffset;
+	}
+
+	public synchronized int getSegmentCount() {
+		return segments.size();
+	}
+
+	// oldest offset still kept after retention
+	public synchronized long getFirstOffset() {
+		return segments.firstKey();
+	}
+
+	// rolls that found no spare ready and mapped a segment under the lock
+	public synchronized long getBlockingRolls() {
+		return blockingRolls;
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		}
+		flusher.shutdown();
+		try {
+			flusher.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+		for (Segment segment : segments.values()) {
+			segment.channel.close();
+		}
+		if (spare != null) {
+			spare.channel.close();
+			Files.deleteIfExists(spare.path);
+		}
+	}
+
+	// periodic work of the flusher thread
+	private void maintain() {
+		flushQuietly();
+		try {
+			enforceRetention();
+		} catch (IOException | RuntimeException e) {
+			log.warn("Retention of journal {} failed", directory, e);
+		}
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (IOException | RuntimeException e) {
+			log.warn("Flush of journal {} failed", directory, e);
+		}
+	}
+
+	// swaps in the spare segment, called with the lock held
+	private void roll() throws IOException {
+		active.end = active.position;
+		unforced.add(active);
+		if (spare != null) {
+			Segment next = spare;
+			spare = null;
+			next.baseOffset = nextOffset;
+			flusher.execute(() -> promote(next));
+			active = next;
+		} else {
+			blockingRolls++;
+			active = openSegment(segmentPath(nextOffset), nextOffset, true);
+		}
+		segments.put(active.baseOffset, active);
+	}
+
+	// flusher thread: names the promoted spare after its first offset,
+	// forces the rolled segment and maps a new spare
+	private void promote(Segment segment) {
+		try {
+			Path path = segmentPath(segment.baseOffset);
+			Files.move(segment.path, path, StandardCopyOption.ATOMIC_MOVE);
+			segment.path = path;
+		} catch (IOException | RuntimeException e) {
+			log.warn("Spare of journal {} could not be renamed", directory, e);
+		}
+		flushQuietly();
+		prepareSpareQuietly();
+	}
+
+	private void prepareSpareQuietly() {
+		try {
+			synchronized (this) {
+				if (spare != null || closed) {
+					return;
+				}
+			}
+			Path path = directory.resolve(SPARE);
+			// a spare renamed by promote() is never still here, a stale one
+			// from a failed rename is replaced
+			Files.deleteIfExists(path);
+			Segment segment = openSegment(path, -1, true);
+			synchronized (this) {
+				if (!closed) {
+					spare = segment;
+					return;
+				}
+			}
+			segment.channel.close();
+			Files.deleteIfExists(path);
+		} catch (IOException | RuntimeException e) {
+			log.warn("Spare of journal {} could not be mapped", directory, e);
+		}
+	}
+
+	private void enforceRetention() throws IOException {
+		if (retentionBytes == 0 && retentionMillis == 0) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		List<Segment> expired = new ArrayList<>();
+		synchronized (this) {
+			long size = 0;
+			for (Segment segment : segments.values()) {
+				size += segment.buffer.capacity();
+			}
+			for (Iterator<Segment> it = segments.values().iterator(); it.hasNext();) {
+				Segment segment = it.next();
+				if (segment == active) {
+					break;
+				}
+				boolean tooBig = retentionBytes > 0 && size > retentionBytes;
+				boolean tooOld = retentionMillis > 0 && now - segment.lastTimestamp > retentionMillis;
+				if (!tooBig && !tooOld) {
+					break;
+				}
+				it.remove();
+				unforced.remove(segment);
+				size -= segment.buffer.capacity();
+				expired.add(segment);
+			}
+		}
+		for (Segment segment : expired) {
+			segment.channel.close();
+			Files.deleteIfExists(segment.path);
+		}
+	}
+
+	private void recover() throws IOException {
+		TreeMap<Long, Path> files = new TreeMap<>();
+		try (Stream<Path> list = Files.list(directory)) {
+			list.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+					.forEach(path -> {
+						String name = path.getFileName().toString();
+						files.put(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())),
+								path);
+					});
+		}
+		recoverSpare(files);
+		// offsets run on from one segment to the next; a gap means records
+		// were lost, so like a torn record it ends the log
+		long expected = -1;
+		for (Map.Entry<Long, Path> file : files.entrySet()) {
+			if (expected >= 0 && file.getKey() != expected) {
+				log.warn("Journal {} misses offsets {} to {}, dropping {} and later segments",
+						directory, expected, file.getKey() - 1, file.getValue().getFileName());
+				for (Path dropped : files.tailMap(file.getKey(), true).values()) {
+					Files.delete(dropped);
+				}
+				break;
+			}
+			Segment segment = openSegment(file.getValue(), file.getKey(), false);
+			expected = scan(segment);
+			segments.put(segment.baseOffset, segment);
+		}
+		if (segments.isEmpty()) {
+			active = openSegment(segmentPath(0), 0, true);
+			segments.put(0L, active);
+			return;
+		}
+		// the last segment is mapped again for writing
+		Segment last = segments.lastEntry().getValue();
+		last.channel.close();
+		active = openSegment(last.path, last.baseOffset, true);
+		nextOffset = scan(active);
+		segments.put(active.baseOffset, active);
+	}
+
+	// a spare that was swapped in but not renamed before a crash is named
+	// after the offset of its first record, which may be below segments a
+	// later roll already created; an empty one is deleted
+	private void recoverSpare(TreeMap<Long, Path> files) throws IOException {
+		Path path = directory.resolve(SPARE);
+		if (!Files.exists(path)) {
+			return;
+		}
+		long baseOffset = -1;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + 8);
+			if (channel.read(header, 0) == header.capacity() && header.getInt(0) > 0) {
+				baseOffset = header.getLong(HEADER_BYTES);
+			}
+		}
+		if (baseOffset < 0 || files.containsKey(baseOffset)) {
+			Files.delete(path);
+			return;
+		}
+		Path named = segmentPath(baseOffset);
+		Files.move(path, named, StandardCopyOption.ATOMIC_MOVE);
+		files.put(baseOffset, named);
+	}
+
+	// walks the records of a segment, rebuilding its sparse index, and
+	// returns the offset following the last valid one
+	private long scan(Segment segment) {
+		ByteBuffer buffer = segment.buffer.duplicate();
+		int capacity = buffer.capacity();
+		long offset = segment.baseOffset;
+		int position = 0;
+		while (position + HEADER_BYTES <= capacity) {
+			int bodyLength = buffer.getInt(position);
+			if (bodyLength <= 0 || position + HEADER_BYTES + bodyLength > capacity) {
+				break;
+			}
+			crc.reset();
+			crc.update(buffer.duplicate().position(position + HEADER_BYTES)
+					.limit(position + HEADER_BYTES + bodyLength));
+			if ((int) crc.getValue() != buffer.getInt(position + 4)
+					|| buffer.getLong(position + HEADER_BYTES) != offset) {
+				break;
+			}
+			segment.append(offset, position, indexInterval);
+			segment.lastTimestamp = buffer.getLong(position + HEADER_BYTES + 8);
+			position += HEADER_BYTES + bodyLength;
+			offset++;
+		}
+		segment.position = position;
+		segment.end = position;
+		return offset;
+	}
+
+	private Path segmentPath(long baseOffset) {
+		return directory.resolve(String.format("%020d%s", baseOffset, SUFFIX));
+	}
+
+	private Segment openSegment(Path path, long baseOffset, boolean writable) throws IOException {
+		FileChannel channel = writable
+				? FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+						StandardOpenOption.WRITE)
+				: FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			long size = writable ? segmentSize : channel.size();
+			MappedByteBuffer buffer = channel.map(writable ? MapMode.READ_WRITE : MapMode.READ_ONLY,
+					0, size);
+			return new Segment(path, baseOffset, channel, buffer);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+		buffer.putInt(bytes.length);
+		buffer.put(bytes);
+	}
+
+	private static String getString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static class Segment {
+
+		final FileChannel channel;
+		final MappedByteBuffer buffer;
+
+		// a spare gets its name and base offset when it is swapped in
+		volatile Path path;
+		long baseOffset;
+
+		// write position, and end of data once the segment is rolled
+		int position;
+		int end;
+		// timestamp of the last record, for age based retention
+		long lastTimestamp;
+
+		// sparse index: offsets[i] starts at positions[i]
+		long[] offsets = new long[16];
+		int[] positions = new int[16];
+		int indexSize;
+		int records;
+
+		Segment(Path path, long baseOffset, FileChannel channel, MappedByteBuffer buffer) {
+			this.path = path;
+			this.baseOffset = baseOffset;
+			this.channel = channel;
+			this.buffer = buffer;
+		}
+
+		void append(long offset, int position, int interval) {
+			if (records++ % interval != 0) {
+				return;
+			}
+			if (indexSize == offsets.length) {
+				offsets = Arrays.copyOf(offsets, indexSize * 2);
+				positions = Arrays.copyOf(positions, indexSize * 2);
+			}
+			offsets[indexSize] = offset;
+			positions[indexSize] = position;
+			indexSize++;
+		}
+
+		// position of the last indexed record at or before offset
+		int floorPosition(long offset) {
+			int index = Arrays.binarySearch(offsets, 0, indexSize, offset);
+			if (index < 0) {
+				index = -index - 2;
+			}
+			return index < 0 ? 0 : positions[index];
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package es.codeurjc.test.chat;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters shared by all the outbound queues of a ChatHandler
+public class OutboundMetrics {
+
+	private final LongAdder enqueued = new LongAdder();
+	private final LongAdder sent = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder disconnected = new LongAdder();
+	private final LongAdder depth = new LongAdder();
+
+	void enqueued() {
+		enqueued.increment();
+		depth.increment();
+	}
+
+	// a message counted by enqueued() was refused by the queue
+	void notQueued() {
+		enqueued.decrement();
+		depth.decrement();
+	}
+
+	// a queued message was taken out, to be sent or discarded
+	void dequeued() {
+		depth.decrement();
+	}
+
+	void sent() {
+		sent.increment();
+	}
+
+	void dropped(int messages) {
+		dropped.add(messages);
+	}
+
+	void rejected() {
+		rejected.increment();
+	}
+
+	void disconnected() {
+		disconnected.increment();
+	}
+
+	public long getEnqueued() {
+		return enqueued.sum();
+	}
+
+	public long getSent() {
+		return sent.sum();
+	}
+
+	public long getDropped() {
+		return dropped.sum();
+	}
+
+	// messages refused without being queued: closed session or DISCONNECT
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	public long getDisconnected() {
+		return disconnected.sum();
+	}
+
+	// messages waiting in all queues, counted as they enter and leave them
+	public long getQueueDepth() {
+		return depth.sum();
+	}
+
+	public String toString() {
+		return "enqueued=" + getEnqueued() + " sent=" + getSent() + " dropped=" + getDropped()
+				+ " rejected=" + getRejected() + " disconnected=" + getDisconnected()
+				+ " depth=" + getQueueDepth();
+	}
+}
@@ -0,0 +1,185 @@
+package es.codeurjc.test.chat;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+// Bounded queue of messages waiting to be written to one WebSocket session.
+// offer() never blocks: the message is queued and a drain task is scheduled
+// on the writer executor, so a slow client only delays its own messages.
+// At most one drain task per session runs at a time, and it is the only
+// caller of session.sendMessage and, for the DISCONNECT policy, of
+// session.close, since a WebSocket session is not safe for concurrent use.
+//
+// Messages that never enter the queue (the session is closed, or the
+// DISCONNECT policy refuses them) are counted as rejected; queued messages
+// that are discarded before being written are counted as dropped.
+public class OutboundQueue {
+
+	private static final Logger log = LoggerFactory.getLogger(OutboundQueue.class);
+
+	// What to do when a message arrives and the queue is full
+	public enum OverflowPolicy {
+		// discard the oldest queued message to make room
+		DROP_OLDEST,
+		// close the session of the slow consumer and discard its queue
+		DISCONNECT
+	}
+
+	// messages written per drain task before yielding the writer thread
+	static final int DRAIN_BATCH = 64;
+
+	private final WebSocketSession session;
+	private final BlockingQueue<WebSocketMessage<?>> queue;
+	private final OverflowPolicy policy;
+	private final Executor writer;
+	private final OutboundMetrics metrics;
+
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final AtomicBoolean disconnecting = new AtomicBoolean();
+	private final AtomicLong dropped = new AtomicLong();
+	private volatile boolean closed;
+
+	public OutboundQueue(WebSocketSession session, int capacity, OverflowPolicy policy,
+			Executor writer, OutboundMetrics metrics) {
+		this.session = session;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.policy = policy;
+		this.writer = writer;
+		this.metrics = metrics;
+	}
+
+	public void offer(WebSocketMessage<?> message) {
+		if (closed || disconnecting.get() || !session.isOpen()) {
+			reject();
+			return;
+		}
+		// counted before it is visible to the drain, so the depth never goes
+		// below zero
+		metrics.enqueued();
+		while (!queue.offer(message)) {
+			if (policy == OverflowPolicy.DISCONNECT) {
+				metrics.notQueued();
+				disconnect();
+				reject();
+				return;
+			}
+			if (queue.poll() != null) {
+				metrics.dequeued();
+				drop(1);
+			}
+		}
+		schedule();
+	}
+
+	// discards the queued messages and refuses new ones, for a session that
+	// has been closed
+	public void close() {
+		closed = true;
+		discard();
+	}
+
+	public int getDepth() {
+		return queue.size();
+	}
+
+	// queued messages discarded plus messages rejected
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	private void schedule() {
+		if (scheduled.compareAndSet(false, true)) {
+			try {
+				writer.execute(this::drain);
+			} catch (RejectedExecutionException e) {
+				// the writer has been shut down, nothing will be written
+				scheduled.set(false);
+				discard();
+			}
+		}
+	}
+
+	private void drain() {
+		try {
+			for (int i = 0; i < DRAIN_BATCH; i++) {
+				if (disconnecting.get()) {
+					closeSession();
+					return;
+				}
+				if (closed || !session.isOpen()) {
+					// nothing more can be written, and offer() refuses new messages
+					discard();
+					return;
+				}
+				WebSocketMessage<?> message = queue.poll();
+				if (message == null) {
+					break;
+				}
+				metrics.dequeued();
+				try {
+					session.sendMessage(message);
+					metrics.sent();
+				} catch (IOException | RuntimeException e) {
+					log.debug("Message to session {} not sent", session.getId(), e);
+					drop(1);
+				}
+			}
+		} finally {
+			scheduled.set(false);
+		}
+		// messages queued after the last poll, left over from the batch, or a
+		// disconnect requested while this drain was running
+		if (!closed && (!queue.isEmpty() || disconnecting.get())) {
+			schedule();
+		}
+	}
+
+	// the slow consumer is cut off at once, and its session closed by the drain
+	private void disconnect() {
+		if (disconnecting.compareAndSet(false, true)) {
+			metrics.disconnected();
+			discard();
+			schedule();
+		}
+	}
+
+	private void closeSession() {
+		closed = true;
+		discard();
+		try {
+			session.close(CloseStatus.SESSION_NOT_RELIABLE);
+		} catch (IOException | RuntimeException e) {
+			log.debug("Session {} not closed cleanly", session.getId(), e);
+		}
+	}
+
+	private void discard() {
+		int discarded = 0;
+		while (queue.poll() != null) {
+			metrics.dequeued();
+			discarded++;
+		}
+		drop(discarded);
+	}
+
+	private void reject() {
+		dropped.incrementAndGet();
+		metrics.rejected();
+	}
+
+	private void drop(int messages) {
+		dropped.addAndGet(messages);
+		metrics.dropped(messages);
+	}
+}
@@ -0,0 +1,208 @@
+package es.codeurjc.test.chat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Coalesces the joins and leaves of a chat over a short window. The first
+// event of a chat schedules a flush windowMillis later; the flush reduces
+// the queued events to the net roster delta (a join followed by a leave of
+// the same user cancels out) and makes a single rosterChanged call per
+// member. A burst of n joins into a room of n members then costs n
+// callbacks instead of n².
+//
+// The scheduler thread only times the windows; each flush runs on a
+// delivery pool, one at a time per chat so deltas keep their order, and a
+// member that is slow to take its delta only holds up its own chat. A
+// WebSocketUser just encodes the delta into its outbound queue. A member
+// that throws is skipped and counted as failed.
+public class PresenceBatcher implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(PresenceBatcher.class);
+
+	private final long windowMillis;
+	private final ScheduledExecutorService scheduler;
+	private final ExecutorService delivery;
+
+	private final LongAdder events = new LongAdder();
+	private final LongAdder cancelled = new LongAdder();
+	private final LongAdder batches = new LongAdder();
+	private final LongAdder emitted = new LongAdder();
+	private final LongAdder avoided = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+
+	public PresenceBatcher(long windowMillis) {
+		this.windowMillis = windowMillis;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "chat-presence");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.delivery = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "chat-presence-delivery");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	// Presence events of one chat waiting for the next flush
+	static class Pending {
+
+		private final Queue<Event> events = new ConcurrentLinkedQueue<>();
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+	}
+
+	private static class Event {
+
+		final User user;
+		final boolean join;
+
+		Event(User user, boolean join) {
+			this.user = user;
+			this.join = join;
+		}
+	}
+
+	void joined(Chat chat, Pending pending, User user) {
+		add(chat, pending, new Event(user, true));
+	}
+
+	void left(Chat chat, Pending pending, User user) {
+		add(chat, pending, new Event(user, false));
+	}
+
+	private void add(Chat chat, Pending pending, Event event) {
+		events.increment();
+		pending.events.add(event);
+		if (pending.scheduled.compareAndSet(false, true)) {
+			schedule(chat, pending);
+		}
+	}
+
+	private void schedule(Chat chat, Pending pending) {
+		try {
+			scheduler.schedule(() -> delivery.execute(() -> flush(chat, pending)), windowMillis,
+					TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// closed, the events are dropped
+		}
+	}
+
+	private void flush(Chat chat, Pending pending) {
+		try {
+			deliver(chat, pending);
+		} finally {
+			// cleared only once delivered, so flushes of a chat never overlap;
+			// events that arrived meanwhile get the next window
+			pending.scheduled.set(false);
+			if (!pending.events.isEmpty() && pending.scheduled.compareAndSet(false, true)) {
+				schedule(chat, pending);
+			}
+		}
+	}
+
+	private void deliver(Chat chat, Pending pending) {
+		Map<User, Integer> net = new LinkedHashMap<>();
+		int drained = 0;
+		for (Event event; (event = pending.events.poll()) != null; drained++) {
+			net.merge(event.user, event.join ? 1 : -1, Integer::sum);
+		}
+		List<User> joined = new ArrayList<>();
+		List<User> left = new ArrayList<>();
+		for (Map.Entry<User, Integer> entry : net.entrySet()) {
+			if (entry.getValue() > 0) {
+				joined.add(entry.getKey());
+			} else if (entry.getValue() < 0) {
+				left.add(entry.getKey());
+			}
+		}
+		cancelled.add(drained - joined.size() - left.size());
+		if (joined.isEmpty() && left.isEmpty()) {
+			return;
+		}
+		Set<User> joinedSet = new HashSet<>(joined);
+		int recipients = 0;
+		int delivered = 0;
+		for (User member : chat.getUsers()) {
+			List<User> others = joined;
+			if (joinedSet.contains(member)) {
+				others = new ArrayList<>(joined);
+				others.remove(member);
+			}
+			if (others.isEmpty() && left.isEmpty()) {
+				continue;
+			}
+			recipients++;
+			try {
+				member.rosterChanged(chat, others, left);
+				delivered++;
+			} catch (RuntimeException e) {
+				failed.increment();
+				log.warn("Roster delta of chat '{}' failed for user '{}'", chat.getName(),
+						member.getName(), e);
+			}
+		}
+		emitted.add(delivered);
+		batches.increment();
+		// without batching each drained event would have been a callback to
+		// every recipient
+		avoided.add((long) drained * recipients - delivered);
+	}
+
+	// join and leave events received
+	public long getEvents() {
+		return events.sum();
+	}
+
+	// events that cancelled out inside their window, such as a quick reconnect
+	public long getCancelled() {
+		return cancelled.sum();
+	}
+
+	// flushes that produced a roster delta, counted once it is delivered
+	public long getBatches() {
+		return batches.sum();
+	}
+
+	// rosterChanged callbacks made
+	public long getEmitted() {
+		return emitted.sum();
+	}
+
+	// drained events times recipients, minus the callbacks emitted
+	public long getAvoided() {
+		return avoided.sum();
+	}
+
+	// rosterChanged callbacks that threw
+	public long getFailed() {
+		return failed.sum();
+	}
+
+	@Override
+	public void close() {
+		scheduler.shutdown();
+		delivery.shutdown();
+	}
+
+	public String toString() {
+		return "events=" + getEvents() + " cancelled=" + getCancelled() + " batches="
+				+ getBatches() + " emitted=" + getEmitted() + " avoided=" + getAvoided()
+				+ " failed=" + getFailed();
+	}
+}
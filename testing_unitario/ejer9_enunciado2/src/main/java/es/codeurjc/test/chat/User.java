@@ -1,5 +1,7 @@
 package es.codeurjc.test.chat;
 
+import java.util.Collection;
+
 public interface User {
 
 	public String getName();
@@ -16,4 +18,21 @@ public interface User {
 
 	public void newMessage(Chat chat, User user, String message);
 
+	// batched presence change, see PresenceBatcher; users that can announce
+	// a whole delta at once should override this
+	public default void rosterChanged(Chat chat, Collection<User> joined, Collection<User> left) {
+		for (User user : joined) {
+			newUserInChat(chat, user);
+		}
+		for (User user : left) {
+			userExitedFromChat(chat, user);
+		}
+	}
+
+	// the same ChatMessage is given to every user of the chat, so users that
+	// can share its encoded form should override this
+	public default void newMessage(ChatMessage message) {
+		newMessage(message.getChat(), message.getUser(), message.getMessage());
+	}
+
 }
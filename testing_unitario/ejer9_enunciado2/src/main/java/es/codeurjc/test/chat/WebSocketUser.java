@@ -1,11 +1,12 @@
 package es.codeurjc.test.chat;
 
-import java.io.IOException;
+import java.util.Collection;
 
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 public class WebSocketUser implements User {
@@ -15,11 +16,23 @@ public class WebSocketUser implements User {
 	private WebSocketSession session;
 	private String name;
 	private String color;
+	private OutboundQueue outbound;
 
-	public WebSocketUser(WebSocketSession session, String name, String color) {
+	// messages are written asynchronously through the given outbound queue
+	public WebSocketUser(WebSocketSession session, String name, String color,
+			OutboundQueue outbound) {
 		this.session = session;
 		this.name = name;
 		this.color = color;
+		this.outbound = outbound;
+	}
+
+	public WebSocketSession getSession() {
+		return session;
+	}
+
+	public OutboundQueue getOutboundQueue() {
+		return outbound;
 	}
 
 	@Override
@@ -70,22 +83,50 @@ public class WebSocketUser implements User {
 		send(msg);
 	}
 
+	// one system message for the whole delta
 	@Override
-	public void newMessage(Chat chat, User user, String message) {
+	public void rosterChanged(Chat chat, Collection<User> joined, Collection<User> left) {
 		ObjectNode msg = mapper.createObjectNode();
-		msg.put("name", user.getName());
-		msg.put("color", user.getColor());
-		msg.put("message", message);
+		msg.put("type", "system");
+		StringBuilder text = new StringBuilder();
+		if (!joined.isEmpty()) {
+			text.append("New users ").append(names(joined)).append(" in chat '")
+					.append(chat.getName()).append("'");
+		}
+		if (!left.isEmpty()) {
+			text.append(text.length() > 0 ? ". " : "").append("Users ").append(names(left))
+					.append(" exited from chat '").append(chat.getName()).append("'");
+		}
+		msg.put("message", text.toString());
+		ArrayNode joinedNames = msg.putArray("joined");
+		joined.forEach(user -> joinedNames.add(user.getName()));
+		ArrayNode leftNames = msg.putArray("left");
+		left.forEach(user -> leftNames.add(user.getName()));
 
 		send(msg);
 	}
 
-	private void send(ObjectNode msg) {
-		try {
-			session.sendMessage(new TextMessage(msg.toString()));
-		} catch (IOException e) {
-			e.printStackTrace();
+	private static String names(Collection<User> users) {
+		StringBuilder names = new StringBuilder();
+		for (User user : users) {
+			names.append(names.length() > 0 ? ", '" : "'").append(user.getName()).append("'");
 		}
+		return names.toString();
+	}
+
+	@Override
+	public void newMessage(Chat chat, User user, String message) {
+		newMessage(new ChatMessage(chat, user, message));
+	}
+
+	// shares the frame encoded once for the whole chat
+	@Override
+	public void newMessage(ChatMessage message) {
+		outbound.offer(message.getTextMessage());
+	}
+
+	private void send(ObjectNode msg) {
+		outbound.offer(new TextMessage(msg.toString()));
 	}
 
 }
@@ -0,0 +1,106 @@
+package es.codeurjc.test.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+
+public class ChatHandlerTest {
+
+	private final ChatHandler handler = new ChatHandler();
+
+	@BeforeEach
+	public void init() throws Exception {
+		handler.init();
+	}
+
+	@AfterEach
+	public void destroy() throws Exception {
+		handler.destroy();
+	}
+
+	@Test
+	public void refusedJoinDoesNotUnregisterTheUserWithThatName() throws Exception {
+
+		FakeSession first = new FakeSession();
+		FakeSession second = new FakeSession();
+		handler.handleTextMessage(first, join("Pepe", "Room"));
+		User pepe = handler.getChatManager().getUser("Pepe");
+
+		assertThrows(IllegalArgumentException.class,
+				() -> handler.handleTextMessage(second, join("Pepe", "Room")));
+		handler.afterConnectionClosed(second, CloseStatus.SERVER_ERROR);
+
+		assertSame(pepe, handler.getChatManager().getUser("Pepe"));
+	}
+
+	@Test
+	public void userWithoutChatIsUnregisteredOnClose() throws Exception {
+
+		FakeSession session = new FakeSession();
+		User user = new CountingUser("Pepe");
+		handler.getChatManager().newUser(user, false);
+		session.getAttributes().put("user", user);
+
+		handler.afterConnectionClosed(session, CloseStatus.SERVER_ERROR);
+
+		assertNull(handler.getChatManager().getUser("Pepe"));
+	}
+
+	@Test
+	public void closedSessionLeavesChatAndRegistry() throws Exception {
+
+		FakeSession session = new FakeSession();
+		handler.handleTextMessage(session, join("Pepe", "Room"));
+
+		handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+
+		assertNull(handler.getChatManager().getUser("Pepe"));
+		assertNull(handler.getChatManager().getChat("Room").getUser("Pepe"));
+	}
+
+	@Test
+	public void closedSessionDiscardsItsOutboundQueue() throws Exception {
+
+		FakeSession session = new FakeSession();
+		handler.handleTextMessage(session, join("Pepe", "Room"));
+		WebSocketUser user = (WebSocketUser) session.getAttributes().get("user");
+
+		handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+		user.getOutboundQueue().offer(new TextMessage("late"));
+
+		assertEquals(0, user.getOutboundQueue().getDepth());
+		assertEquals(1, handler.getOutboundMetrics().getRejected());
+	}
+
+	@Test
+	public void clientsAreToldAboutNewChats() throws Exception {
+
+		FakeSession first = new FakeSession();
+		handler.handleTextMessage(first, join("Pepe", "Room"));
+
+		handler.handleTextMessage(new FakeSession(), join("Juan", "Other"));
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!received(first, "New chat 'Other'") && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(received(first, "New chat 'Other'"));
+	}
+
+	private static boolean received(FakeSession session, String text) {
+		return session.sent.stream()
+				.anyMatch(message -> ((TextMessage) message).getPayload().contains(text));
+	}
+
+	private static TextMessage join(String user, String chat) {
+		return new TextMessage("{\"user\":\"" + user + "\",\"chat\":\"" + chat + "\"}");
+	}
+}
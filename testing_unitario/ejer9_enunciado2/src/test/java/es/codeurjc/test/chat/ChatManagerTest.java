@@ -0,0 +1,203 @@
+package es.codeurjc.test.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+
+public class ChatManagerTest {
+
+	private static final int THREADS = 8;
+	private static final int USERS_PER_THREAD = 500;
+
+	@Test
+	public void newChatWithSameNameFromManyThreadsCreatesOneChat() throws Exception {
+
+		ChatManager chatManager = new ChatManager(1);
+		CountingUser user = new CountingUser("Pepe");
+		chatManager.newUser(user);
+
+		List<Future<Chat>> results = runInParallel(
+				thread -> chatManager.newChat("Room", 5, TimeUnit.SECONDS));
+
+		Chat chat = chatManager.getChat("Room");
+		for (Future<Chat> result : results) {
+			assertSame(chat, result.get());
+		}
+		assertEquals(1, user.newChats.get());
+	}
+
+	@Test
+	public void newChatOverCapacityFails() throws Exception {
+
+		ChatManager chatManager = new ChatManager(1);
+		chatManager.newChat("Room", 5, TimeUnit.SECONDS);
+
+		assertThrows(TimeoutException.class, () -> chatManager.newChat("Other", 0, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void closedChatFreesCapacity() throws Exception {
+
+		ChatManager chatManager = new ChatManager(1);
+		chatManager.newChat("Room", 5, TimeUnit.SECONDS).close();
+
+		assertEquals("Other", chatManager.newChat("Other", 0, TimeUnit.SECONDS).getName());
+	}
+
+	@Test
+	public void newChatWaitsUntilAChatIsClosed() throws Exception {
+
+		ChatManager chatManager = new ChatManager(1);
+		Chat room = chatManager.newChat("Room", 5, TimeUnit.SECONDS);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Future<Chat> other = executor.submit(() -> chatManager.newChat("Other", 5, TimeUnit.SECONDS));
+		while (chatManager.getAdmission().getWaiting() == 0) {
+			Thread.sleep(1);
+		}
+		room.close();
+
+		assertEquals("Other", other.get(5, TimeUnit.SECONDS).getName());
+		assertEquals(0, chatManager.getAdmission().getWaiting());
+		assertEquals(2, chatManager.getAdmission().getAdmitted());
+		assertTrue(chatManager.getAdmission().getMaxLatency(TimeUnit.NANOSECONDS) > 0);
+		executor.shutdown();
+	}
+
+	@Test
+	public void newChatTimesOutWhenNoChatIsClosed() throws Exception {
+
+		ChatManager chatManager = new ChatManager(1);
+		chatManager.newChat("Room", 5, TimeUnit.SECONDS);
+
+		long start = System.nanoTime();
+		assertThrows(TimeoutException.class,
+				() -> chatManager.newChat("Other", 100, TimeUnit.MILLISECONDS));
+
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+		assertEquals(1, chatManager.getAdmission().getTimedOut());
+	}
+
+	@Test
+	public void roomEventsReachOnlyInterestedUsers() throws Exception {
+
+		ChatManager chatManager = new ChatManager(10, 4);
+		CountingUser everything = new CountingUser("everything");
+		CountingUser watcher = new CountingUser("watcher");
+		CountingUser member = new CountingUser("member");
+		List<CountingUser> others = new ArrayList<>();
+		chatManager.newUser(everything);
+		chatManager.newUser(watcher, false);
+		chatManager.newUser(member, false);
+		chatManager.subscribe(watcher, "Room");
+		for (int i = 0; i < 1000; i++) {
+			CountingUser other = new CountingUser("other-" + i);
+			chatManager.newUser(other, false);
+			others.add(other);
+		}
+
+		Chat room = chatManager.newChat("Room", 5, TimeUnit.SECONDS);
+		chatManager.newChat("Other", 5, TimeUnit.SECONDS);
+		room.addUser(member);
+		room.close();
+
+		assertEquals(2, everything.newChats.get());
+		assertEquals(1, everything.closedChats.get());
+		assertEquals(1, watcher.newChats.get());
+		assertEquals(1, watcher.closedChats.get());
+		assertEquals(0, member.newChats.get());
+		assertEquals(1, member.closedChats.get());
+		for (CountingUser other : others) {
+			assertEquals(0, other.newChats.get() + other.closedChats.get());
+		}
+		assertEquals(1003, chatManager.getUsers().size());
+	}
+
+	@Test
+	public void removedUserIsNoLongerNotified() throws Exception {
+
+		ChatManager chatManager = new ChatManager(10);
+		CountingUser everything = new CountingUser("everything");
+		CountingUser watcher = new CountingUser("watcher");
+		chatManager.newUser(everything);
+		chatManager.newUser(watcher, false);
+		chatManager.subscribe(watcher, "Room");
+
+		chatManager.removeUser(everything);
+		chatManager.removeUser(watcher);
+		chatManager.newChat("Room", 5, TimeUnit.SECONDS);
+
+		assertEquals(0, everything.newChats.get() + watcher.newChats.get());
+		assertEquals(0, chatManager.getUsers().size());
+		// the name is free again
+		chatManager.newUser(new CountingUser("watcher"));
+	}
+
+	@Test
+	public void staleSessionLeavingDoesNotAnnounceAnExit() throws Exception {
+
+		ChatManager chatManager = new ChatManager(1);
+		Chat chat = chatManager.newChat("Room", 5, TimeUnit.SECONDS);
+		CountingUser member = new CountingUser("member");
+		CountingUser oldSession = new CountingUser("Pepe");
+		CountingUser newSession = new CountingUser("Pepe");
+		chat.addUser(member);
+		chat.addUser(oldSession);
+		chat.addUser(newSession);
+
+		chat.removeUser(oldSession);
+
+		assertEquals(0, member.exits.get());
+		assertSame(newSession, chat.getUser("Pepe"));
+	}
+
+	@Test
+	public void concurrentJoinsAndMessagesLoseNoUser() throws Exception {
+
+		ChatManager chatManager = new ChatManager(1);
+		Chat chat = chatManager.newChat("Room", 5, TimeUnit.SECONDS);
+
+		List<Future<Chat>> results = runInParallel(thread -> {
+			for (int i = 0; i < USERS_PER_THREAD; i++) {
+				CountingUser user = new CountingUser("user-" + thread + "-" + i);
+				chatManager.newUser(user);
+				chat.addUser(user);
+				chat.sendMessage(user, "Hello");
+			}
+			return chat;
+		});
+		for (Future<Chat> result : results) {
+			result.get();
+		}
+
+		assertEquals(THREADS * USERS_PER_THREAD, chatManager.getUsers().size());
+		assertEquals(THREADS * USERS_PER_THREAD, chat.getUsers().size());
+	}
+
+	private interface ThreadBody {
+		Chat run(int thread) throws Exception;
+	}
+
+	private static List<Future<Chat>> runInParallel(ThreadBody body) throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<Chat>> results = new ArrayList<>();
+		for (int thread = 0; thread < THREADS; thread++) {
+			int id = thread;
+			results.add(executor.submit(() -> body.run(id)));
+		}
+		executor.shutdown();
+		executor.awaitTermination(30, TimeUnit.SECONDS);
+		return results;
+	}
+}
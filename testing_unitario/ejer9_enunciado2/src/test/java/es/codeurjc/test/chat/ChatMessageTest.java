@@ -0,0 +1,46 @@
+package es.codeurjc.test.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketMessage;
+
+public class ChatMessageTest {
+
+	@Test
+	public void broadcastSharesOneEncodedFrame() throws Exception {
+
+		ChatManager chatManager = new ChatManager(1);
+		Chat chat = chatManager.newChat("Room", 5, TimeUnit.SECONDS);
+		OutboundMetrics metrics = new OutboundMetrics();
+		List<FakeSession> sessions = new ArrayList<>();
+		WebSocketUser sender = null;
+		for (int i = 0; i < 5; i++) {
+			FakeSession session = new FakeSession();
+			OutboundQueue outbound = new OutboundQueue(session, 16,
+					OutboundQueue.OverflowPolicy.DROP_OLDEST, Runnable::run, metrics);
+			WebSocketUser user = new WebSocketUser(session, "user" + i, "007AFF", outbound);
+			chat.addUser(user);
+			sessions.add(session);
+			sender = sender == null ? user : sender;
+		}
+		for (FakeSession session : sessions) {
+			session.sent.clear();
+		}
+
+		chat.sendMessage(sender, "Hello \"all\"");
+
+		WebSocketMessage<?> first = sessions.get(0).sent.get(0);
+		assertEquals("{\"name\":\"user0\",\"color\":\"007AFF\",\"message\":\"Hello \\\"all\\\"\"}",
+				first.getPayload());
+		for (FakeSession session : sessions) {
+			assertEquals(1, session.sent.size());
+			assertSame(first, session.sent.get(0));
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package es.codeurjc.test.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+public class ChatRequestTest {
+
+	private final JsonFactory factory = new JsonFactory();
+
+	@Test
+	public void joinRequestIsParsed() throws IOException {
+
+		ChatRequest request = ChatRequest.parse(factory, "{\"user\":\"Pepe\",\"chat\":\"Room\"}");
+
+		assertTrue(request.isJoin());
+		assertEquals("Room", request.getChat());
+		assertEquals("Pepe", request.getUser());
+	}
+
+	@Test
+	public void messageRequestIsParsed() throws IOException {
+
+		ChatRequest request = ChatRequest.parse(factory,
+				"{\"extra\":{\"a\":[1,2]},\"message\":\"Hi \\\"all\\\"\",\"chat\":null}");
+
+		assertFalse(request.isJoin());
+		assertNull(request.getChat());
+		assertEquals("Hi \"all\"", request.getMessage());
+	}
+
+	@Test
+	public void scalarValuesAreReadAsText() throws IOException {
+
+		ChatRequest request = ChatRequest.parse(factory, "{\"message\":42}");
+
+		assertEquals("42", request.getMessage());
+	}
+
+	@Test
+	public void messageRequestWithoutMessageIsRejected() {
+
+		assertThrows(IOException.class, () -> ChatRequest.parse(factory, "{\"text\":\"Hi\"}"));
+		assertThrows(IOException.class, () -> ChatRequest.parse(factory, "{\"message\":null}"));
+	}
+
+	@Test
+	public void joinRequestWithoutUserIsRejected() {
+
+		assertThrows(IOException.class, () -> ChatRequest.parse(factory, "{\"chat\":\"Room\"}"));
+	}
+
+	@Test
+	public void nonObjectIsRejected() {
+
+		assertThrows(IOException.class, () -> ChatRequest.parse(factory, "[\"message\"]"));
+	}
+}
@@ -0,0 +1,55 @@
+package es.codeurjc.test.chat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// User that only counts the notifications it receives, safe to share
+// between threads
+public class CountingUser implements User {
+
+	private final String name;
+
+	final AtomicInteger newChats = new AtomicInteger();
+	final AtomicInteger closedChats = new AtomicInteger();
+	final AtomicInteger joins = new AtomicInteger();
+	final AtomicInteger exits = new AtomicInteger();
+	final AtomicInteger messages = new AtomicInteger();
+
+	public CountingUser(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String getColor() {
+		return "007AFF";
+	}
+
+	@Override
+	public void newChat(Chat chat) {
+		newChats.incrementAndGet();
+	}
+
+	@Override
+	public void chatClosed(Chat chat) {
+		closedChats.incrementAndGet();
+	}
+
+	@Override
+	public void newUserInChat(Chat chat, User user) {
+		joins.incrementAndGet();
+	}
+
+	@Override
+	public void userExitedFromChat(Chat chat, User user) {
+		exits.incrementAndGet();
+	}
+
+	@Override
+	public void newMessage(Chat chat, User user, String message) {
+		messages.incrementAndGet();
+	}
+}
@@ -0,0 +1,177 @@
+package es.codeurjc.test.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class MessageHistoryTest {
+
+	private final User sender = new CountingUser("Pepe");
+
+	@Test
+	public void keepsOnlyTheLastMessages() {
+
+		MessageHistory history = new MessageHistory(3);
+		for (int i = 0; i < 5; i++) {
+			history.add(new ChatMessage(null, sender, "m" + i));
+		}
+
+		assertEquals(List.of("m2", "m3", "m4"), texts(history.getMessages()));
+	}
+
+	@Test
+	public void zeroCapacityKeepsNothing() {
+
+		MessageHistory history = new MessageHistory(0);
+		history.add(new ChatMessage(null, sender, "m0"));
+
+		assertTrue(history.getMessages().isEmpty());
+	}
+
+	@Test
+	public void concurrentWritersNeverExceedCapacity() throws Exception {
+
+		MessageHistory history = new MessageHistory(64);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<?>> writers = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			writers.add(executor.submit(() -> {
+				for (int i = 0; i < 10_000; i++) {
+					history.add(new ChatMessage(null, sender, "m" + i));
+					assertTrue(history.getMessages().size() <= 64);
+				}
+			}));
+		}
+		for (Future<?> writer : writers) {
+			writer.get();
+		}
+		executor.shutdown();
+		executor.awaitTermination(5, TimeUnit.SECONDS);
+
+		assertEquals(64, history.getMessages().size());
+	}
+
+	@Test
+	public void lateJoinerReceivesRecentMessages() throws Exception {
+
+		ChatManager chatManager = new ChatManager(1, 1, 2);
+		Chat chat = chatManager.newChat("Room", 5, TimeUnit.SECONDS);
+		CountingUser first = new CountingUser("first");
+		chat.addUser(first);
+		for (int i = 0; i < 3; i++) {
+			chat.sendMessage(first, "m" + i);
+		}
+
+		CountingUser late = new CountingUser("late");
+		chat.addUser(late);
+
+		assertEquals(2, late.messages.get());
+		assertEquals(3, first.messages.get());
+	}
+
+	@Test
+	public void joinDuringBroadcastsGetsEveryLaterMessageOnceAndInOrder() throws Exception {
+
+		ChatManager chatManager = new ChatManager(1, 1, 50);
+		Chat chat = chatManager.newChat("Room", 5, TimeUnit.SECONDS);
+		CountingUser sender = new CountingUser("sender");
+		chat.addUser(sender);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Future<?> sending = executor.submit(() -> {
+			for (int i = 0; i < 20_000; i++) {
+				chat.sendMessage(sender, Integer.toString(i));
+			}
+		});
+
+		List<Integer> received = new ArrayList<>();
+		User late = new CountingUser("late") {
+			@Override
+			public void newMessage(ChatMessage message) {
+				received.add(Integer.parseInt(message.getMessage()));
+			}
+		};
+		Thread.sleep(5);
+		chat.addUser(late);
+		sending.get();
+		executor.shutdown();
+
+		assertEquals(19_999, (int) received.get(received.size() - 1));
+		for (int i = 1; i < received.size(); i++) {
+			assertEquals(received.get(i - 1) + 1, (int) received.get(i));
+		}
+	}
+
+	@Test
+	public void slowRecipientDoesNotStallAJoin() throws Exception {
+
+		ChatManager chatManager = new ChatManager(1, 1, 50);
+		Chat chat = chatManager.newChat("Room", 5, TimeUnit.SECONDS);
+		CountDownLatch receiving = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountingUser sender = new CountingUser("sender");
+		chat.addUser(sender);
+		chat.addUser(new CountingUser("slow") {
+			@Override
+			public void newMessage(ChatMessage message) {
+				receiving.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Future<?> sending = executor.submit(() -> chat.sendMessage(sender, "hello"));
+		receiving.await();
+
+		try {
+			CountingUser late = new CountingUser("late");
+			chat.addUser(late);
+
+			assertEquals(1, late.messages.get());
+		} finally {
+			release.countDown();
+			sending.get();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void userCanJoinFromAMessageCallback() throws Exception {
+
+		ChatManager chatManager = new ChatManager(1, 1, 50);
+		Chat chat = chatManager.newChat("Room", 5, TimeUnit.SECONDS);
+		CountingUser invited = new CountingUser("invited");
+		CountingUser host = new CountingUser("host") {
+			@Override
+			public void newMessage(ChatMessage message) {
+				if (chat.getUser("invited") == null) {
+					chat.addUser(invited);
+				}
+			}
+		};
+		chat.addUser(host);
+
+		chat.sendMessage(host, "come in");
+
+		assertEquals(1, invited.messages.get());
+	}
+
+	private static List<String> texts(List<ChatMessage> messages) {
+		List<String> texts = new ArrayList<>();
+		for (ChatMessage message : messages) {
+			texts.add(message.getMessage());
+		}
+		return texts;
+	}
+}
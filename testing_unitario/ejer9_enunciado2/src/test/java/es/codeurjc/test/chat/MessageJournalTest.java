@@ -0,0 +1,295 @@
+package es.codeurjc.test.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MessageJournalTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void appendedMessagesAreReplayedInOrder() throws IOException {
+
+		try (MessageJournal journal = new MessageJournal(directory, 1 << 16, 4, 1000, 1000)) {
+			for (int i = 0; i < 10; i++) {
+				assertEquals(i, journal.append(i, "Room", "Pepe", "m" + i));
+			}
+
+			assertEquals(List.of("m0", "m1", "m2", "m3", "m4", "m5", "m6", "m7", "m8", "m9"),
+					replay(journal, 0));
+			assertEquals(List.of("m7", "m8", "m9"), replay(journal, 7));
+		}
+	}
+
+	@Test
+	public void segmentsRollAndReplayCrossesThem() throws IOException {
+
+		try (MessageJournal journal = new MessageJournal(directory, 256, 2, 1000, 1000)) {
+			for (int i = 0; i < 100; i++) {
+				journal.append(i, "Room", "Pepe", "message number " + i);
+			}
+
+			assertTrue(journal.getSegmentCount() > 1);
+			List<String> messages = replay(journal, 42);
+			assertEquals(58, messages.size());
+			assertEquals("message number 42", messages.get(0));
+			assertEquals("message number 99", messages.get(57));
+		}
+	}
+
+	@Test
+	public void reopenedJournalContinuesAfterLastMessage() throws IOException {
+
+		try (MessageJournal journal = new MessageJournal(directory, 256, 2, 1000, 1000)) {
+			for (int i = 0; i < 20; i++) {
+				journal.append(i, "Room", "Pepe", "m" + i);
+			}
+		}
+
+		try (MessageJournal journal = new MessageJournal(directory, 256, 2, 1000, 1000)) {
+			assertEquals(20, journal.getNextOffset());
+			assertEquals(20, journal.append(20, "Room", "Pepe", "m20"));
+			assertEquals(List.of("m18", "m19", "m20"), replay(journal, 18));
+		}
+	}
+
+	@Test
+	public void tornRecordEndsTheLogOnOpen() throws IOException {
+
+		try (MessageJournal journal = new MessageJournal(directory, 1 << 16, 4, 1000, 1000)) {
+			journal.append(0, "Room", "Pepe", "kept");
+			journal.append(1, "Room", "Pepe", "torn");
+		}
+		// corrupt the last byte of the second record
+		Path segment = segments().get(0);
+		int firstLength = MessageJournal.HEADER_BYTES + 16 + 12 + 4 + 4 + 4;
+		int secondLast = firstLength + MessageJournal.HEADER_BYTES + 16 + 12 + 4 + 4 + 4 - 1;
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] { '!' }), secondLast);
+		}
+
+		try (MessageJournal journal = new MessageJournal(directory, 1 << 16, 4, 1000, 1000)) {
+			assertEquals(List.of("kept"), replay(journal, 0));
+			assertEquals(1, journal.append(2, "Room", "Pepe", "again"));
+		}
+	}
+
+	@Test
+	public void flushMakesMessagesDurable() throws IOException {
+
+		try (MessageJournal journal = new MessageJournal(directory, 1 << 16, 4, 1000, 1000)) {
+			journal.append(0, "Room", "Pepe", "m0");
+			assertEquals(0, journal.getDurableOffset());
+
+			journal.flush();
+
+			assertEquals(1, journal.getDurableOffset());
+		}
+	}
+
+	@Test
+	public void batchedFlushRunsInTheBackground() throws Exception {
+
+		try (MessageJournal journal = new MessageJournal(directory, 1 << 16, 4, 2, 10_000)) {
+			journal.append(0, "Room", "Pepe", "m0");
+			journal.append(1, "Room", "Pepe", "m1");
+
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (journal.getDurableOffset() < 2 && System.nanoTime() < deadline) {
+				Thread.sleep(1);
+			}
+			assertEquals(2, journal.getDurableOffset());
+		}
+	}
+
+	@Test
+	public void rollSwapsInTheSpareSegment() throws Exception {
+
+		try (MessageJournal journal = new MessageJournal(directory, 256, 2, 1000, 1000)) {
+			awaitFile(MessageJournal.SPARE);
+
+			for (int i = 0; i < 10; i++) {
+				journal.append(i, "Room", "Pepe", "m" + i);
+			}
+
+			assertEquals(2, journal.getSegmentCount());
+			assertEquals(0, journal.getBlockingRolls());
+			awaitFile(String.format("%020d.log", 5));
+			awaitFile(MessageJournal.SPARE);
+		}
+		assertEquals(2, segments().size());
+	}
+
+	@Test
+	public void spareLeftByACrashIsRecovered() throws IOException {
+
+		try (MessageJournal journal = new MessageJournal(directory, 256, 2, 1000, 1000)) {
+			for (int i = 0; i < 10; i++) {
+				journal.append(i, "Room", "Pepe", "m" + i);
+			}
+		}
+		// as if the process died before the swapped in spare was renamed
+		Files.move(directory.resolve(String.format("%020d.log", 5)),
+				directory.resolve(MessageJournal.SPARE));
+
+		try (MessageJournal journal = new MessageJournal(directory, 256, 2, 1000, 1000)) {
+			assertEquals(10, journal.getNextOffset());
+			assertEquals(List.of("m4", "m5", "m9"), List.of(replay(journal, 4).get(0),
+					replay(journal, 5).get(0), replay(journal, 9).get(0)));
+			assertEquals(10, journal.append(10, "Room", "Pepe", "m10"));
+		}
+	}
+
+	@Test
+	public void spareOvertakenByABlockingRollIsRecoveredInOrder() throws IOException {
+
+		try (MessageJournal journal = new MessageJournal(directory, 256, 2, 1000, 1000)) {
+			for (int i = 0; i < 15; i++) {
+				journal.append(i, "Room", "Pepe", "m" + i);
+			}
+		}
+		// the spare took offsets 5 to 9 and a blocking roll created the
+		// segment of offset 10 before the spare was renamed
+		Files.move(directory.resolve(String.format("%020d.log", 5)),
+				directory.resolve(MessageJournal.SPARE));
+
+		try (MessageJournal journal = new MessageJournal(directory, 256, 2, 1000, 1000)) {
+			assertEquals(15, journal.getNextOffset());
+			assertEquals(3, journal.getSegmentCount());
+			List<String> messages = replay(journal, 0);
+			assertEquals(15, messages.size());
+			for (int i = 0; i < 15; i++) {
+				assertEquals("m" + i, messages.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void gapBetweenSegmentsEndsTheLogOnOpen() throws IOException {
+
+		try (MessageJournal journal = new MessageJournal(directory, 256, 2, 1000, 1000)) {
+			for (int i = 0; i < 15; i++) {
+				journal.append(i, "Room", "Pepe", "m" + i);
+			}
+		}
+		Files.delete(directory.resolve(String.format("%020d.log", 5)));
+
+		try (MessageJournal journal = new MessageJournal(directory, 256, 2, 1000, 1000)) {
+			assertEquals(5, journal.getNextOffset());
+			assertEquals(List.of("m3", "m4"), replay(journal, 3));
+			assertEquals(5, journal.append(5, "Room", "Pepe", "again"));
+		}
+		assertTrue(Files.notExists(directory.resolve(String.format("%020d.log", 10))));
+	}
+
+	@Test
+	public void oldestSegmentsAreDeletedBeyondRetentionBytes() throws Exception {
+
+		try (MessageJournal journal = new MessageJournal(directory, 256, 2, 1000, 10, 512, 0)) {
+			for (int i = 0; i < 40; i++) {
+				journal.append(i, "Room", "Pepe", "m" + i);
+			}
+
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (journal.getSegmentCount() > 2 && System.nanoTime() < deadline) {
+				Thread.sleep(1);
+			}
+			assertEquals(2, journal.getSegmentCount());
+			assertEquals(30, journal.getFirstOffset());
+			assertEquals("m30", replay(journal, 0).get(0));
+		}
+	}
+
+	@Test
+	public void segmentsOlderThanRetentionMillisAreDeleted() throws Exception {
+
+		long now = System.currentTimeMillis();
+		try (MessageJournal journal = new MessageJournal(directory, 256, 2, 1000, 10, 0,
+				TimeUnit.HOURS.toMillis(1))) {
+			for (int i = 0; i < 10; i++) {
+				journal.append(now - TimeUnit.DAYS.toMillis(1), "Room", "Pepe", "m" + i);
+			}
+			journal.append(now, "Room", "Pepe", "m10");
+
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (journal.getSegmentCount() > 1 && System.nanoTime() < deadline) {
+				Thread.sleep(1);
+			}
+			assertEquals(10, journal.getFirstOffset());
+			assertEquals(List.of("m10"), replay(journal, 0));
+		}
+		assertEquals(List.of(directory.resolve(String.format("%020d.log", 10))), segments());
+	}
+
+	@Test
+	public void chatMessagesAreJournaled() throws Exception {
+
+		try (MessageJournal journal = new MessageJournal(directory, 1 << 16, 4, 1000, 1000)) {
+			ChatManager chatManager = new ChatManager(1);
+			chatManager.setJournal(journal);
+			Chat chat = chatManager.newChat("Room", 5, TimeUnit.SECONDS);
+			CountingUser user = new CountingUser("Pepe");
+			chat.addUser(user);
+
+			chat.sendMessage(user, "Hello");
+
+			List<String> records = new ArrayList<>();
+			journal.replay(0, (offset, timestamp, chatName, userName, message) -> records
+					.add(chatName + "/" + userName + "/" + message));
+			assertEquals(List.of("Room/Pepe/Hello"), records);
+		}
+	}
+
+	@Test
+	public void messagesAreStillDeliveredOnceTheJournalIsClosed() throws Exception {
+
+		MessageJournal journal = new MessageJournal(directory, 1 << 16, 4, 1, 1000);
+		ChatManager chatManager = new ChatManager(1);
+		chatManager.setJournal(journal);
+		Chat chat = chatManager.newChat("Room", 5, TimeUnit.SECONDS);
+		CountingUser user = new CountingUser("Pepe");
+		chat.addUser(user);
+		journal.close();
+
+		chat.sendMessage(user, "Hello");
+
+		assertEquals(1, user.messages.get());
+	}
+
+	private static List<String> replay(MessageJournal journal, long from) throws IOException {
+		List<String> messages = new ArrayList<>();
+		journal.replay(from, (offset, timestamp, chat, user, message) -> messages.add(message));
+		return messages;
+	}
+
+	private void awaitFile(String name) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!Files.exists(directory.resolve(name)) && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		assertTrue(Files.exists(directory.resolve(name)), name);
+	}
+
+	private List<Path> segments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			List<Path> segments = new ArrayList<>();
+			files.sorted().forEach(segments::add);
+			return segments;
+		}
+	}
+}
@@ -0,0 +1,216 @@
+package es.codeurjc.test.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import es.codeurjc.test.chat.OutboundQueue.OverflowPolicy;
+
+public class OutboundQueueTest {
+
+	private final ExecutorService writer = Executors.newCachedThreadPool();
+	private final OutboundMetrics metrics = new OutboundMetrics();
+
+	@AfterEach
+	public void tearDown() {
+		writer.shutdownNow();
+	}
+
+	@Test
+	public void messagesAreWrittenInOrder() throws Exception {
+
+		FakeSession session = new FakeSession();
+		OutboundQueue queue = new OutboundQueue(session, 1000, OverflowPolicy.DROP_OLDEST, writer,
+				metrics);
+
+		for (int i = 0; i < 500; i++) {
+			queue.offer(new TextMessage("m" + i));
+		}
+		awaitSent(session, 500);
+
+		for (int i = 0; i < 500; i++) {
+			assertEquals("m" + i, session.sent.get(i).getPayload());
+		}
+		assertEquals(500, metrics.getSent());
+		assertEquals(0, metrics.getQueueDepth());
+	}
+
+	@Test
+	public void slowClientDoesNotBlockOthers() throws Exception {
+
+		CountDownLatch gate = new CountDownLatch(1);
+		FakeSession slow = new FakeSession(gate);
+		FakeSession fast = new FakeSession();
+		OutboundQueue slowQueue = new OutboundQueue(slow, 10, OverflowPolicy.DROP_OLDEST, writer,
+				metrics);
+		OutboundQueue fastQueue = new OutboundQueue(fast, 10, OverflowPolicy.DROP_OLDEST, writer,
+				metrics);
+
+		slowQueue.offer(new TextMessage("hello"));
+		fastQueue.offer(new TextMessage("hello"));
+		awaitSent(fast, 1);
+
+		assertTrue(slow.sent.isEmpty());
+		gate.countDown();
+		awaitSent(slow, 1);
+	}
+
+	@Test
+	public void dropOldestKeepsNewestMessages() throws Exception {
+
+		CountDownLatch gate = new CountDownLatch(1);
+		FakeSession session = new FakeSession(gate);
+		OutboundQueue queue = new OutboundQueue(session, 2, OverflowPolicy.DROP_OLDEST, writer,
+				metrics);
+
+		// the first message is taken by the writer and blocks on the gate
+		queue.offer(new TextMessage("m0"));
+		awaitDepth(queue, 0);
+		for (int i = 1; i <= 5; i++) {
+			queue.offer(new TextMessage("m" + i));
+		}
+
+		assertEquals(2, queue.getDepth());
+		assertEquals(3, queue.getDropped());
+		gate.countDown();
+		awaitSent(session, 3);
+		assertEquals(List.of("m0", "m4", "m5"), payloads(session.sent));
+		assertEquals(3, metrics.getDropped());
+	}
+
+	@Test
+	public void disconnectClosesSlowConsumer() throws Exception {
+
+		CountDownLatch gate = new CountDownLatch(1);
+		FakeSession session = new FakeSession(gate);
+		OutboundQueue queue = new OutboundQueue(session, 2, OverflowPolicy.DISCONNECT, writer,
+				metrics);
+
+		queue.offer(new TextMessage("m0"));
+		awaitDepth(queue, 0);
+		for (int i = 1; i <= 3; i++) {
+			queue.offer(new TextMessage("m" + i));
+		}
+		queue.offer(new TextMessage("after close"));
+
+		assertEquals(0, queue.getDepth());
+		assertEquals(4, queue.getDropped());
+		assertEquals(2, metrics.getDropped());
+		assertEquals(2, metrics.getRejected());
+		assertEquals(0, metrics.getQueueDepth());
+		assertEquals(1, metrics.getDisconnected());
+		// the session is closed by the drain, not while it is sending
+		assertTrue(session.isOpen());
+		gate.countDown();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (session.isOpen() && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		assertEquals(CloseStatus.SESSION_NOT_RELIABLE, session.closeStatus);
+		assertEquals(List.of("m0"), payloads(session.sent));
+	}
+
+	@Test
+	public void failedSendDoesNotStopTheDrain() throws Exception {
+
+		FakeSession session = new FakeSession() {
+			@Override
+			public void sendMessage(WebSocketMessage<?> message) {
+				if ("boom".equals(message.getPayload())) {
+					throw new IllegalStateException("closing");
+				}
+				super.sendMessage(message);
+			}
+		};
+		OutboundQueue queue = new OutboundQueue(session, 8, OverflowPolicy.DROP_OLDEST, writer,
+				metrics);
+
+		queue.offer(new TextMessage("boom"));
+		awaitDepth(queue, 0);
+		queue.offer(new TextMessage("m1"));
+
+		awaitSent(session, 1);
+		assertEquals(List.of("m1"), payloads(session.sent));
+		assertEquals(1, metrics.getDropped());
+		assertEquals(0, metrics.getQueueDepth());
+	}
+
+	@Test
+	public void drainStopsWhenTheSessionIsClosed() throws Exception {
+
+		CountDownLatch gate = new CountDownLatch(1);
+		FakeSession session = new FakeSession(gate);
+		OutboundQueue queue = new OutboundQueue(session, 8, OverflowPolicy.DROP_OLDEST, writer,
+				metrics);
+
+		queue.offer(new TextMessage("m0"));
+		awaitDepth(queue, 0);
+		queue.offer(new TextMessage("m1"));
+		queue.offer(new TextMessage("m2"));
+		session.close();
+		gate.countDown();
+		awaitDepth(queue, 0);
+
+		assertEquals(List.of("m0"), payloads(session.sent));
+		assertEquals(2, metrics.getDropped());
+		assertEquals(0, metrics.getQueueDepth());
+	}
+
+	@Test
+	public void closedQueueDiscardsAndRejects() throws Exception {
+
+		CountDownLatch gate = new CountDownLatch(1);
+		FakeSession session = new FakeSession(gate);
+		OutboundQueue queue = new OutboundQueue(session, 8, OverflowPolicy.DROP_OLDEST, writer,
+				metrics);
+		queue.offer(new TextMessage("m0"));
+		awaitDepth(queue, 0);
+		queue.offer(new TextMessage("m1"));
+
+		queue.close();
+		queue.offer(new TextMessage("m2"));
+		gate.countDown();
+
+		assertEquals(0, queue.getDepth());
+		assertEquals(1, metrics.getDropped());
+		assertEquals(1, metrics.getRejected());
+		assertEquals(0, metrics.getQueueDepth());
+	}
+
+	private static void awaitSent(FakeSession session, int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (session.sent.size() < count && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		assertEquals(count, session.sent.size());
+	}
+
+	private static void awaitDepth(OutboundQueue queue, int depth) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (queue.getDepth() != depth && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		assertEquals(depth, queue.getDepth());
+	}
+
+	private static List<Object> payloads(List<WebSocketMessage<?>> messages) {
+		List<Object> payloads = new ArrayList<>();
+		for (WebSocketMessage<?> message : messages) {
+			payloads.add(message.getPayload());
+		}
+		return payloads;
+	}
+}
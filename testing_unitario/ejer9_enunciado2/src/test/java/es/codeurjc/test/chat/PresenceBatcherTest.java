@@ -0,0 +1,231 @@
+package es.codeurjc.test.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class PresenceBatcherTest {
+
+	private final PresenceBatcher batcher = new PresenceBatcher(50);
+
+	@AfterEach
+	public void close() {
+		batcher.close();
+	}
+
+	@Test
+	public void burstOfJoinsIsOneCallbackPerMember() throws Exception {
+
+		ChatManager chatManager = newChatManager();
+		Chat chat = chatManager.newChat("Chat", 5, TimeUnit.SECONDS);
+		List<RosterUser> users = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			RosterUser user = new RosterUser("user" + i);
+			users.add(user);
+			chat.addUser(user);
+		}
+
+		awaitBatches(1);
+
+		for (RosterUser user : users) {
+			assertEquals(1, user.deltas.size());
+			assertEquals(9, user.deltas.get(0).joined.size());
+			assertFalse(user.deltas.get(0).joined.contains(user.getName()));
+		}
+		assertEquals(10, batcher.getEmitted());
+		assertEquals(10 * 10 - 10, batcher.getAvoided());
+	}
+
+	@Test
+	public void joinAndLeaveInsideTheWindowCancelOut() throws Exception {
+
+		ChatManager chatManager = newChatManager();
+		Chat chat = chatManager.newChat("Chat", 5, TimeUnit.SECONDS);
+		RosterUser member = new RosterUser("member");
+		chat.addUser(member);
+		awaitBatches(1);
+		member.deltas.clear();
+
+		RosterUser flaky = new RosterUser("flaky");
+		chat.addUser(flaky);
+		chat.removeUser(flaky);
+		Thread.sleep(150);
+
+		assertTrue(member.deltas.isEmpty());
+		assertEquals(2, batcher.getCancelled());
+	}
+
+	@Test
+	public void leavesAreReportedToRemainingMembers() throws Exception {
+
+		ChatManager chatManager = newChatManager();
+		Chat chat = chatManager.newChat("Chat", 5, TimeUnit.SECONDS);
+		RosterUser stays = new RosterUser("stays");
+		RosterUser leaves = new RosterUser("leaves");
+		chat.addUser(stays);
+		chat.addUser(leaves);
+		// the two joins may be split over two windows, so wait for the delta
+		// and not for a batch count
+		await(() -> !stays.deltas.isEmpty());
+
+		chat.removeUser(leaves);
+		await(() -> !stays.deltas.get(stays.deltas.size() - 1).left.isEmpty());
+
+		Delta last = stays.deltas.get(stays.deltas.size() - 1);
+		assertEquals(List.of(), last.joined);
+		assertEquals(List.of("leaves"), last.left);
+		assertTrue(leaves.deltas.stream().allMatch(delta -> delta.left.isEmpty()));
+	}
+
+	@Test
+	public void staleSessionLeavingIsNotReported() throws Exception {
+
+		ChatManager chatManager = newChatManager();
+		Chat chat = chatManager.newChat("Chat", 5, TimeUnit.SECONDS);
+		RosterUser member = new RosterUser("member");
+		RosterUser oldSession = new RosterUser("Pepe");
+		chat.addUser(member);
+		chat.addUser(oldSession);
+		awaitBatches(1);
+		chat.addUser(new RosterUser("Pepe"));
+		awaitBatches(2);
+		member.deltas.clear();
+
+		chat.removeUser(oldSession);
+		Thread.sleep(150);
+
+		assertTrue(member.deltas.isEmpty());
+	}
+
+	@Test
+	public void legacyUsersReceiveOneCallbackPerUserInTheDelta() throws Exception {
+
+		ChatManager chatManager = newChatManager();
+		Chat chat = chatManager.newChat("Chat", 5, TimeUnit.SECONDS);
+		CountingUser legacy = new CountingUser("legacy");
+		chat.addUser(legacy);
+		chat.addUser(new CountingUser("a"));
+		chat.addUser(new CountingUser("b"));
+
+		awaitBatches(1);
+
+		assertEquals(2, legacy.joins.get());
+	}
+
+	@Test
+	public void failingMemberDoesNotStopTheOthers() throws Exception {
+
+		// a window long enough for the three joins to be one batch
+		PresenceBatcher batcher = new PresenceBatcher(500);
+		ChatManager chatManager = new ChatManager(5);
+		chatManager.setPresenceBatcher(batcher);
+		Chat chat = chatManager.newChat("Chat", 5, TimeUnit.SECONDS);
+		RosterUser broken = new RosterUser("broken") {
+			@Override
+			public void rosterChanged(Chat chat, Collection<User> joined, Collection<User> left) {
+				throw new IllegalStateException("broken");
+			}
+		};
+		RosterUser member = new RosterUser("member");
+		chat.addUser(broken);
+		chat.addUser(member);
+		chat.addUser(new RosterUser("newcomer"));
+
+		try {
+			await(() -> batcher.getFailed() + batcher.getEmitted() == 3);
+
+			assertEquals(1, batcher.getFailed());
+			assertEquals(2, batcher.getEmitted());
+			assertEquals(List.of("broken", "newcomer"), member.deltas.get(0).joined);
+			// three events for three recipients, two callbacks made
+			assertEquals(3 * 3 - 2, batcher.getAvoided());
+		} finally {
+			batcher.close();
+		}
+	}
+
+	@Test
+	public void slowMemberOnlyHoldsUpItsOwnChat() throws Exception {
+
+		ChatManager chatManager = newChatManager();
+		CountDownLatch release = new CountDownLatch(1);
+		Chat slowChat = chatManager.newChat("Slow", 5, TimeUnit.SECONDS);
+		slowChat.addUser(new RosterUser("slow") {
+			@Override
+			public void rosterChanged(Chat chat, Collection<User> joined, Collection<User> left) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		slowChat.addUser(new RosterUser("other"));
+		try {
+			Chat chat = chatManager.newChat("Chat", 5, TimeUnit.SECONDS);
+			RosterUser member = new RosterUser("member");
+			chat.addUser(member);
+			chat.addUser(new RosterUser("newcomer"));
+
+			await(() -> !member.deltas.isEmpty());
+		} finally {
+			release.countDown();
+		}
+	}
+
+	private ChatManager newChatManager() {
+		ChatManager chatManager = new ChatManager(5);
+		chatManager.setPresenceBatcher(batcher);
+		return chatManager;
+	}
+
+	private void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(condition.getAsBoolean());
+	}
+
+	private void awaitBatches(int batches) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (batcher.getBatches() < batches && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(batcher.getBatches() >= batches, "Expected " + batches + " batches: " + batcher);
+	}
+
+	private static class Delta {
+
+		final List<String> joined = new ArrayList<>();
+		final List<String> left = new ArrayList<>();
+	}
+
+	private static class RosterUser extends CountingUser {
+
+		final List<Delta> deltas = Collections.synchronizedList(new ArrayList<>());
+
+		RosterUser(String name) {
+			super(name);
+		}
+
+		@Override
+		public void rosterChanged(Chat chat, Collection<User> joined, Collection<User> left) {
+			Delta delta = new Delta();
+			joined.forEach(user -> delta.joined.add(user.getName()));
+			left.forEach(user -> delta.left.add(user.getName()));
+			deltas.add(delta);
+		}
+	}
+}